@@ -0,0 +1,91 @@
+package junit.benchmark;
+
+import junit.dto.PasswordHash;
+import junit.dto.User;
+import junit.service.security.PasswordHasher;
+import junit.service.store.ConcurrentUserStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Запись в ConcurrentUserStore из нескольких потоков: add по одному, пачки addAll и запись вперемешку с getAll.
+ * Потоков больше, чем ядер, специально: так видно, ждут ли писатели друг друга при публикации. Каждые STORE_LIMIT
+ * пользователей хранилище заменяется пустым, чтобы мерить запись, а не сборку мусора в переполненной куче
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentUserStoreBenchmark {
+
+    private static final int BATCH = 64;
+    private static final int STORE_LIMIT = 1 << 18;
+
+    private volatile ConcurrentUserStore store;
+    private AtomicInteger nextId;
+    private PasswordHash passwordHash;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        store = new ConcurrentUserStore();
+        nextId = new AtomicInteger();
+        passwordHash = new PasswordHasher(1).hash("password");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean addContended() {
+        int id = nextId.getAndIncrement();
+        return storeFor(id, 1).add(User.of(id, "user-" + id, passwordHash));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void addAllContended() {
+        int first = nextId.getAndAdd(BATCH);
+        User[] users = new User[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            users[i] = User.of(first + i, "user-" + (first + i), passwordHash);
+        }
+        storeFor(first, BATCH).addAll(List.of(users));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(6)
+    public boolean mixedAdd() {
+        return addContended();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public int mixedGetAll() {
+        return store.getAll().size();
+    }
+
+    private ConcurrentUserStore storeFor(int first, int count) {
+        if ((first + count) / STORE_LIMIT != first / STORE_LIMIT) {
+            store = new ConcurrentUserStore();
+        }
+        return store;
+    }
+}
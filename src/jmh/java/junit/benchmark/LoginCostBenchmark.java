@@ -0,0 +1,68 @@
+package junit.benchmark;
+
+import junit.cache.CacheConfig;
+import junit.dao.UserDao;
+import junit.dto.User;
+import junit.service.UserService;
+import junit.service.UserServiceOptions;
+import junit.service.security.PasswordHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность login при разной стоимости PBKDF2, с кэшем проверенных паролей и без него
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginCostBenchmark {
+
+    private static final int USERS = 64;
+
+    @Param({"1000", "10000", "100000"})
+    int iterations;
+    @Param({"true", "false"})
+    boolean cached;
+
+    private UserService userService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userService = new UserService(new UserDao(), UserServiceOptions.builder()
+                .passwordHasher(new PasswordHasher(iterations))
+                .verifiedCredentialsCache(cached ? CacheConfig.defaults() : null)
+                .build());
+        for (int id = 0; id < USERS; id++) {
+            userService.register(id, "user-" + id, "password-" + id);
+        }
+    }
+
+    @Benchmark
+    public Optional<User> login() {
+        int id = next++ & (USERS - 1);
+        return userService.login("user-" + id, "password-" + id);
+    }
+
+    @Benchmark
+    public Optional<User> loginWrongPassword() {
+        int id = next++ & (USERS - 1);
+        return userService.login("user-" + id, "wrong");
+    }
+}
@@ -0,0 +1,67 @@
+package junit.benchmark;
+
+import junit.metrics.MetricsRegistry;
+import junit.metrics.OperationMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена метрик на одну операцию: start/stop вокруг пустого тела. NONE - registry выключен (ожидается разница с пустым
+ * методом в пределах шума), ENABLED - два nanoTime, LongAdder и запись в гистограмму. login сюда не входит: даже
+ * минимальный PBKDF2 на порядки дороже метрик и прячет их в шуме
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsOverheadBenchmark {
+
+    public enum Metrics {
+        NONE, ENABLED
+    }
+
+    @Param({"NONE", "ENABLED"})
+    Metrics metrics;
+
+    private OperationMetrics operation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MetricsRegistry registry = metrics == Metrics.ENABLED ? MetricsRegistry.create() : MetricsRegistry.disabled();
+        operation = registry.operation("benchmark");
+    }
+
+    @Benchmark
+    public void baseline() {
+        Blackhole.consumeCPU(1);
+    }
+
+    @Benchmark
+    public void startStop() {
+        long start = operation.start();
+        Blackhole.consumeCPU(1);
+        operation.stop(start, true);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void startStopContended() {
+        startStop();
+    }
+}
@@ -0,0 +1,73 @@
+package junit.benchmark;
+
+import junit.dto.PasswordHash;
+import junit.dto.User;
+import junit.service.UserService;
+import junit.service.store.StorageMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * add, getAll и getAllConvertedByID на разном числе уже загруженных пользователей.
+ * LIST отдает представления, а CONCURRENT - копию getAll, поэтому результат обходится целиком: иначе сравнивалось бы
+ * создание обертки с копированием. Многопоточный add - в UserServiceContendedBenchmark
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    int userCount;
+    @Param({"LIST", "CONCURRENT"})
+    StorageMode storageMode;
+
+    private UserService userService;
+    private AtomicInteger nextId;
+    private PasswordHash passwordHash;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        userService = UserServiceLoginBenchmark.Users.preloaded(storageMode, userCount);
+        nextId = new AtomicInteger(userCount);
+        passwordHash = userService.hashPassword("password");
+    }
+
+    @Benchmark
+    public boolean add() {
+        int id = nextId.getAndIncrement();
+        return userService.add(User.of(id, UserServiceLoginBenchmark.Users.userName(id), passwordHash));
+    }
+
+    @Benchmark
+    public void getAll(Blackhole blackhole) {
+        for (User user : userService.getAll()) {
+            blackhole.consume(user);
+        }
+    }
+
+    @Benchmark
+    public void getAllConvertedByID(Blackhole blackhole) {
+        for (Map.Entry<Integer, User> entry : userService.getAllConvertedByID().entrySet()) {
+            blackhole.consume(entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package junit.benchmark;
+
+import junit.dto.PasswordHash;
+import junit.dto.User;
+import junit.service.UserService;
+import junit.service.store.StorageMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * add из нескольких потоков через UserService. Только StorageMode.CONCURRENT: остальные режимы требуют внешней
+ * синхронизации, и мерить их так нечего
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserServiceContendedBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    int userCount;
+
+    private UserService userService;
+    private AtomicInteger nextId;
+    private PasswordHash passwordHash;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        userService = UserServiceLoginBenchmark.Users.preloaded(StorageMode.CONCURRENT, userCount);
+        nextId = new AtomicInteger(userCount);
+        passwordHash = userService.hashPassword("password");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean addContended() {
+        int id = nextId.getAndIncrement();
+        return userService.add(User.of(id, UserServiceLoginBenchmark.Users.userName(id), passwordHash));
+    }
+}
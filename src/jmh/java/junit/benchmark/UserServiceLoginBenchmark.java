@@ -0,0 +1,124 @@
+package junit.benchmark;
+
+import junit.dao.UserDao;
+import junit.dto.User;
+import junit.metrics.MetricsRegistry;
+import junit.service.UserService;
+import junit.service.UserServiceOptions;
+import junit.service.security.PasswordHasher;
+import junit.service.store.StorageMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * login на разном числе пользователей и доле успешных попыток, в одном и в нескольких потоках.
+ * Throughput дает пропускную способность, SampleTime - перцентили задержки, -prof gc - аллокации на операцию
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserServiceLoginBenchmark {
+
+    private static final int KEYS = 1 << 12;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    int userCount;
+    @Param({"1.0", "0.5", "0.0"})
+    double hitRatio;
+    @Param({"LIST", "CONCURRENT"})
+    StorageMode storageMode;
+
+    private UserService userService;
+    private String[] userNames;
+    private String[] passwords;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userService = Users.preloaded(storageMode, userCount);
+        userNames = new String[KEYS];
+        passwords = new String[KEYS];
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < KEYS; i++) {
+            int id = random.nextInt(userCount);
+            boolean hit = random.nextDouble() < hitRatio;
+            userNames[i] = hit ? Users.userName(id) : "missing-" + id;
+            passwords[i] = Users.password(id);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int next;
+
+        int nextIndex() {
+            return next++ & (KEYS - 1);
+        }
+    }
+
+    @Benchmark
+    public Optional<User> login(Cursor cursor) {
+        int i = cursor.nextIndex();
+        return userService.login(userNames[i], passwords[i]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<User> loginContended(Cursor cursor) {
+        int i = cursor.nextIndex();
+        return userService.login(userNames[i], passwords[i]);
+    }
+
+    static final class Users {
+
+        private Users() {
+        }
+
+        /**
+         * Хэширование паролей здесь минимальное, чтобы мерить индексы и хранилище, а не KDF; стоимость KDF меряет
+         * LoginCostBenchmark
+         */
+        static UserService preloaded(StorageMode storageMode, int userCount) {
+            return preloaded(storageMode, userCount, MetricsRegistry.disabled());
+        }
+
+        static UserService preloaded(StorageMode storageMode, int userCount, MetricsRegistry metrics) {
+            UserService userService = new UserService(new UserDao(), UserServiceOptions.builder()
+                    .storageMode(storageMode)
+                    .passwordHasher(new PasswordHasher(1))
+                    .verifiedCredentialsCache(null)
+                    .metrics(metrics)
+                    .build());
+            for (int id = 0; id < userCount; id++) {
+                userService.register(id, userName(id), password(id));
+            }
+            return userService;
+        }
+
+        static String userName(int id) {
+            return "user-" + id;
+        }
+
+        static String password(int id) {
+            return "password-" + id;
+        }
+    }
+}
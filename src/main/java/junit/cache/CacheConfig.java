@@ -0,0 +1,30 @@
+package junit.cache;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+@Builder(toBuilder = true)
+public class CacheConfig {
+
+    @Builder.Default
+    int maxSize = 10_000;
+    @Builder.Default
+    Duration ttl = Duration.ofMinutes(5);
+    /**
+     * Сколько помнить, что значения нет. Duration.ZERO отключает негативное кэширование
+     */
+    @Builder.Default
+    Duration negativeTtl = Duration.ofSeconds(30);
+    /**
+     * Число независимо блокируемых сегментов, LRU соблюдается внутри сегмента
+     */
+    @Builder.Default
+    int segments = 16;
+
+    public static CacheConfig defaults() {
+        return builder().build();
+    }
+}
@@ -0,0 +1,13 @@
+package junit.cache;
+
+import lombok.Value;
+
+@Value
+public class CacheStats {
+
+    long hits;
+    long misses;
+    long evictions;
+    long expirations;
+    int size;
+}
@@ -0,0 +1,171 @@
+package junit.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-through кэш с вытеснением LRU и временем жизни записей. Ключи разбиты по сегментам, у каждого сегмента свой
+ * монитор, так что потоки с разными ключами почти не мешают друг другу. Отсутствие значения (Optional.empty()) тоже
+ * кэшируется, но на negativeTtl
+ */
+public class LruCache<K, V> {
+
+    private final Segment<K, V>[] segments;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final LongSupplier clock;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public LruCache(CacheConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    public LruCache(CacheConfig config, LongSupplier clock) {
+        if (config.getMaxSize() <= 0 || config.getSegments() <= 0) {
+            throw new IllegalArgumentException("Cache size and segment count must be positive");
+        }
+        int segmentCount = Math.min(config.getSegments(), config.getMaxSize());
+        @SuppressWarnings("unchecked")
+        Segment<K, V>[] segments = (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            int capacity = config.getMaxSize() / segmentCount + (i < config.getMaxSize() % segmentCount ? 1 : 0);
+            segments[i] = new Segment<>(capacity, evictions);
+        }
+        this.segments = segments;
+        this.ttlNanos = config.getTtl().toNanos();
+        this.negativeTtlNanos = config.getNegativeTtl().toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Загрузка идет вне монитора сегмента, поэтому пока она идет, ключ могут сбросить (invalidate). Такой результат
+     * возвращается вызывающему, но в кэш не кладется: поколение сегмента, взятое до загрузки, к этому времени уже
+     * сменилось
+     */
+    public Optional<V> get(K key, Function<? super K, Optional<V>> loader) {
+        Segment<K, V> segment = segmentFor(key);
+        long now = clock.getAsLong();
+        long generation;
+        synchronized (segment) {
+            Entry<V> entry = segment.get(key);
+            if (entry != null) {
+                if (now - entry.expiresAt < 0) {
+                    hits.increment();
+                    return entry.value;
+                }
+                segment.remove(key);
+                expirations.increment();
+            }
+            generation = segment.generation;
+        }
+        misses.increment();
+        Optional<V> value = loader.apply(key);
+        long lifetime = value.isPresent() ? ttlNanos : negativeTtlNanos;
+        if (lifetime > 0) {
+            synchronized (segment) {
+                if (segment.generation == generation) {
+                    segment.put(key, new Entry<>(value, clock.getAsLong() + lifetime));
+                }
+            }
+        }
+        return value;
+    }
+
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+            segment.generation++;
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+                segment.generation++;
+            }
+        }
+    }
+
+    /**
+     * Удаляет просроченные записи, не дожидаясь обращения к ним
+     */
+    public void cleanUp() {
+        long now = clock.getAsLong();
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                for (Iterator<Entry<V>> iterator = segment.values().iterator(); iterator.hasNext(); ) {
+                    if (now - iterator.next().expiresAt >= 0) {
+                        iterator.remove();
+                        expirations.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    public CacheStats stats() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), size);
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key == null ? 0 : key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[Math.floorMod(hash, segments.length)];
+    }
+
+    private static final class Entry<V> {
+
+        private final Optional<V> value;
+        private final long expiresAt;
+
+        private Entry(Optional<V> value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * generation растет при каждом сбросе ключей сегмента: загрузка, начатая до сброса, не кладет результат в кэш.
+     * Счетчик общий на сегмент, так что сброс другого ключа того же сегмента тоже отменяет запись - это только
+     * лишний промах, а не устаревшее значение
+     */
+    private static final class Segment<K, V> extends LinkedHashMap<K, Entry<V>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+        private final LongAdder evictions;
+        private long generation;
+
+        private Segment(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package junit.dao;
+
+import junit.cache.CacheConfig;
+import junit.cache.CacheStats;
+import junit.cache.LruCache;
+import junit.dto.User;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Кэширующая обертка над UserDao: чтения идут через LruCache, удаления сбрасывают соответствующие записи.
+ * Подставляется в UserService вместо обычного UserDao
+ */
+public class CachingUserDao extends UserDao {
+
+    private final UserDao userDao;
+    private final LruCache<Integer, User> cache;
+
+    public CachingUserDao(UserDao userDao) {
+        this(userDao, CacheConfig.defaults());
+    }
+
+    public CachingUserDao(UserDao userDao, CacheConfig config) {
+        this(userDao, new LruCache<>(config));
+    }
+
+    public CachingUserDao(UserDao userDao, LruCache<Integer, User> cache) {
+        this.userDao = userDao;
+        this.cache = cache;
+    }
+
+    @Override
+    public Optional<User> findById(Integer userId) {
+        return cache.get(userId, userDao::findById);
+    }
+
+    @Override
+    public boolean delete(Integer userId) {
+        try {
+            return userDao.delete(userId);
+        } finally {
+            cache.invalidate(userId);
+        }
+    }
+
+    @Override
+    public Map<Integer, Boolean> deleteAll(Collection<Integer> userIds) {
+        try {
+            return userDao.deleteAll(userIds);
+        } finally {
+            userIds.forEach(cache::invalidate);
+        }
+    }
+
+    public CacheStats cacheStats() {
+        return cache.stats();
+    }
+}
@@ -1,16 +1,137 @@
 package junit.dao;
 
+import junit.dao.pool.ConnectionFactory;
+import junit.dao.pool.ConnectionPool;
+import junit.dao.pool.PoolConfig;
+import junit.dto.PasswordHash;
+import junit.dto.User;
+import junit.metrics.MetricsRegistry;
+import junit.metrics.OperationMetrics;
 import lombok.SneakyThrows;
 
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public class UserDao {
 
+    private static final String FIND_BY_ID_SQL = "SELECT id, username, password FROM users WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM users WHERE id = ?";
+    private static final int BATCH_SIZE = 500;
+
+    private final ConnectionPool connectionPool;
+    private final OperationMetrics deleteMetrics;
+
+    public UserDao() {
+        this(new ConnectionPool(ConnectionFactory.driverManager("url", "username", "password"), PoolConfig.defaults()));
+    }
+
+    public UserDao(ConnectionPool connectionPool) {
+        this(connectionPool, MetricsRegistry.disabled());
+    }
+
+    /**
+     * delete пишет метрики в операцию "userDao.delete"
+     */
+    public UserDao(ConnectionPool connectionPool, MetricsRegistry metrics) {
+        this.connectionPool = connectionPool;
+        this.deleteMetrics = metrics.operation("userDao.delete");
+    }
+
+    @SneakyThrows
+    public Optional<User> findById(Integer userId) {
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(FIND_BY_ID_SQL)) {
+            statement.setObject(1, userId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return Optional.empty();
+                }
+                return Optional.of(User.of(
+                        resultSet.getObject("id", Integer.class),
+                        resultSet.getString("username"),
+                        PasswordHash.decode(resultSet.getString("password"))
+                ));
+            }
+        }
+    }
+
     @SneakyThrows
     public boolean delete(Integer userId) {
-        try (Connection connection = DriverManager.getConnection("url", "username", "password")) {
-            return true;
+        long start = deleteMetrics.start();
+        boolean success = false;
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(DELETE_SQL)) {
+            statement.setObject(1, userId);
+            boolean deleted = statement.executeUpdate() > 0;
+            success = true;
+            return deleted;
+        } finally {
+            deleteMetrics.stop(start, success);
+        }
+    }
+
+    /**
+     * Удаляет пользователей пачками JDBC-batch на одном соединении. Возвращает результат по каждому id в порядке
+     * передачи (повторяющиеся id удаляются один раз): false значит, что пользователя нет или его удаление не прошло.
+     * Ошибка одного удаления не прерывает остальные
+     */
+    @SneakyThrows
+    public Map<Integer, Boolean> deleteAll(Collection<Integer> userIds) {
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        Map<Integer, Boolean> results = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return results;
+        }
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(DELETE_SQL)) {
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                deleteChunk(statement, ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())), results);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * При BatchUpdateException драйвер либо выполнил всю пачку и пометил упавшие EXECUTE_FAILED, либо остановился на
+     * первой ошибке и вернул счетчики только до нее. Во втором случае упавший id считается неудаленным, а остаток
+     * пачки отправляется заново
+     */
+    private void deleteChunk(PreparedStatement statement, List<Integer> chunk, Map<Integer, Boolean> results)
+            throws SQLException {
+        int done = 0;
+        while (done < chunk.size()) {
+            List<Integer> rest = chunk.subList(done, chunk.size());
+            for (Integer id : rest) {
+                statement.setObject(1, id);
+                statement.addBatch();
+            }
+            int[] counts;
+            try {
+                counts = statement.executeBatch();
+            } catch (BatchUpdateException e) {
+                statement.clearBatch();
+                counts = e.getUpdateCounts();
+            }
+            int reported = Math.min(counts.length, rest.size());
+            for (int i = 0; i < reported; i++) {
+                results.put(rest.get(i), counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO);
+            }
+            if (reported < rest.size()) {
+                results.put(rest.get(reported), false);
+                reported++;
+            }
+            done += reported;
         }
     }
 }
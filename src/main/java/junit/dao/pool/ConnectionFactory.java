@@ -0,0 +1,15 @@
+package junit.dao.pool;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface ConnectionFactory {
+
+    Connection create() throws SQLException;
+
+    static ConnectionFactory driverManager(String url, String username, String password) {
+        return () -> DriverManager.getConnection(url, username, password);
+    }
+}
@@ -0,0 +1,219 @@
+package junit.dao.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограниченный пул соединений. Физические соединения создаются лениво, свободные выдаются в порядке LIFO (самые
+ * "теплые" первыми), а простоявшие дольше idleTimeout закрываются при очередной выдаче или вызове evictIdle().
+ * close() у выданного соединения возвращает его в пул
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private final ConnectionFactory connectionFactory;
+    private final PoolConfig config;
+    private final Semaphore permits;
+    private final Deque<IdleConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0L);
+    private volatile boolean closed;
+
+    public ConnectionPool(ConnectionFactory connectionFactory, PoolConfig config) {
+        if (config.getMaxSize() <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        this.connectionFactory = connectionFactory;
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(config.getAcquireTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new SQLTimeoutException("Timed out waiting " + config.getAcquireTimeout() + " for a connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        } finally {
+            long waited = System.nanoTime() - waitStart;
+            totalWaitNanos.add(waited);
+            maxWaitNanos.accumulate(waited);
+        }
+
+        try {
+            Connection connection = takeIdleOrCreate();
+            active.incrementAndGet();
+            acquired.increment();
+            return wrap(connection);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Iterator<IdleConnection> iterator = idle.descendingIterator(); iterator.hasNext(); ) {
+            IdleConnection candidate = iterator.next();
+            if (isExpired(candidate, now) && idle.removeLastOccurrence(candidate)) {
+                closeQuietly(candidate.connection);
+            }
+        }
+    }
+
+    public PoolMetrics metrics() {
+        return new PoolMetrics(
+                active.get(),
+                idle.size(),
+                created.sum(),
+                acquired.sum(),
+                Duration.ofNanos(totalWaitNanos.sum()),
+                Duration.ofNanos(maxWaitNanos.get())
+        );
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        IdleConnection candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            closeQuietly(candidate.connection);
+        }
+    }
+
+    private Connection takeIdleOrCreate() throws SQLException {
+        evictIdle();
+        IdleConnection candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            if (isExpired(candidate, System.nanoTime()) || !isValid(candidate.connection)) {
+                closeQuietly(candidate.connection);
+            } else {
+                return candidate.connection;
+            }
+        }
+        Connection connection = connectionFactory.create();
+        created.increment();
+        return connection;
+    }
+
+    private void release(Connection connection) {
+        active.decrementAndGet();
+        try {
+            if (closed || connection.isClosed()) {
+                closeQuietly(connection);
+                return;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            idle.offerFirst(new IdleConnection(connection, System.nanoTime()));
+        } catch (SQLException e) {
+            closeQuietly(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean isExpired(IdleConnection candidate, long now) {
+        return now - candidate.releasedAt > config.getIdleTimeout().toNanos();
+    }
+
+    private boolean isValid(Connection connection) {
+        if (!config.isValidateOnBorrow()) {
+            return true;
+        }
+        try {
+            return connection.isValid((int) Math.max(1L, config.getValidationTimeout().toSeconds()));
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new PooledConnectionHandler(connection)
+        );
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private static final class IdleConnection {
+
+        private final Connection connection;
+        private final long releasedAt;
+
+        private IdleConnection(Connection connection, long releasedAt) {
+            this.connection = connection;
+            this.releasedAt = releasedAt;
+        }
+    }
+
+    private final class PooledConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        private PooledConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) {
+                        release(connection);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + connection;
+                default:
+                    if (returned.get()) {
+                        throw new SQLException("Connection is closed");
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package junit.dao.pool;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+@Builder
+public class PoolConfig {
+
+    @Builder.Default
+    int maxSize = 10;
+    @Builder.Default
+    Duration acquireTimeout = Duration.ofSeconds(30);
+    @Builder.Default
+    Duration idleTimeout = Duration.ofMinutes(10);
+    @Builder.Default
+    boolean validateOnBorrow = true;
+    @Builder.Default
+    Duration validationTimeout = Duration.ofSeconds(5);
+
+    public static PoolConfig defaults() {
+        return builder().build();
+    }
+}
@@ -0,0 +1,16 @@
+package junit.dao.pool;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+public class PoolMetrics {
+
+    int active;
+    int idle;
+    long created;
+    long acquired;
+    Duration totalWait;
+    Duration maxWait;
+}
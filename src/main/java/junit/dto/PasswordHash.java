@@ -0,0 +1,41 @@
+package junit.dto;
+
+import lombok.Value;
+
+import java.util.Base64;
+
+/**
+ * Соленый хэш пароля. Вне процесса (в БД, CSV) хранится строкой encode(): pbkdf2-sha256$итерации$соль$хэш, соль и
+ * хэш в Base64
+ */
+@Value
+public class PasswordHash {
+
+    private static final String PREFIX = "pbkdf2-sha256$";
+
+    byte[] salt;
+    byte[] hash;
+    int iterations;
+
+    public String encode() {
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(hash);
+    }
+
+    public static boolean isEncoded(String value) {
+        return value != null && value.startsWith(PREFIX);
+    }
+
+    public static PasswordHash decode(String encoded) {
+        String[] parts = isEncoded(encoded) ? encoded.substring(PREFIX.length()).split("\\$") : new String[0];
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Not an encoded password hash");
+        }
+        try {
+            return new PasswordHash(Base64.getDecoder().decode(parts[1]), Base64.getDecoder().decode(parts[2]),
+                    Integer.parseInt(parts[0]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed password hash", e);
+        }
+    }
+}
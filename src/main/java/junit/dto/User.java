@@ -1,11 +1,17 @@
 package junit.dto;
 
+import lombok.ToString;
 import lombok.Value;
 
+/**
+ * Пароль хранится только в виде соленого хэша: он считается один раз при регистрации (UserService.register) или
+ * приходит уже готовым (импорт, восстановление, БД)
+ */
 @Value(staticConstructor = "of")
 public class User {
 
     Integer id;
     String userName;
-    String password;
+    @ToString.Exclude
+    PasswordHash passwordHash;
 }
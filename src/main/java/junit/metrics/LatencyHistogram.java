@@ -0,0 +1,87 @@
+package junit.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма задержек в наносекундах в духе HdrHistogram: бакеты логарифмические по степеням двойки, каждый разбит
+ * на 16 линейных поддиапазонов, так что значение восстанавливается с погрешностью не больше 1/16 (6.25%) во всем
+ * диапазоне long при фиксированных ~8 КБ памяти. Запись - без блокировок и аллокаций
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0L);
+        counts.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Значение, не меньше которого quantile доли записей (верхняя граница бакета, но не больше максимума)
+     */
+    public long valueAtQuantile(double quantile) {
+        if (quantile < 0.0 || quantile > 1.0) {
+            throw new IllegalArgumentException("Quantile must be in [0, 1]");
+        }
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max());
+            }
+        }
+        return max();
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index - (long) shift * SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,12 @@
+package junit.metrics;
+
+import java.util.List;
+
+/**
+ * Куда отдавать снимки метрик (лог, Prometheus, StatsD и т.п.). Вызывается из потока экспорта, не из рабочих потоков
+ */
+@FunctionalInterface
+public interface MetricsExporter {
+
+    void export(List<OperationSnapshot> snapshots);
+}
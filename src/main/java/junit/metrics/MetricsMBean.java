@@ -0,0 +1,100 @@
+package junit.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Read-only MBean над MetricsRegistry. Набор атрибутов строится по текущим операциям при каждом запросе
+ */
+class MetricsMBean implements DynamicMBean {
+
+    private static final Map<String, Function<OperationSnapshot, Object>> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("successes", OperationSnapshot::getSuccesses);
+        FIELDS.put("failures", OperationSnapshot::getFailures);
+        FIELDS.put("meanNanos", OperationSnapshot::getMeanNanos);
+        FIELDS.put("p50Nanos", OperationSnapshot::getP50Nanos);
+        FIELDS.put("p99Nanos", OperationSnapshot::getP99Nanos);
+        FIELDS.put("p999Nanos", OperationSnapshot::getP999Nanos);
+        FIELDS.put("maxNanos", OperationSnapshot::getMaxNanos);
+    }
+
+    private final MetricsRegistry registry;
+
+    MetricsMBean(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        int dot = attribute.lastIndexOf('.');
+        Function<OperationSnapshot, Object> field = dot < 0 ? null : FIELDS.get(attribute.substring(dot + 1));
+        if (field != null) {
+            String operation = attribute.substring(0, dot);
+            for (OperationSnapshot snapshot : registry.snapshot()) {
+                if (snapshot.getName().equals(operation)) {
+                    return field.apply(snapshot);
+                }
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException ignored) {
+                // по контракту DynamicMBean отсутствующие атрибуты просто пропускаются
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    /**
+     * Операций у MBean нет. По контракту DynamicMBean неизвестная операция - ReflectionException с
+     * NoSuchMethodException внутри: сервер передает его клиенту как есть, а не как RuntimeMBeanException
+     */
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName), "Metrics have no operations");
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (OperationSnapshot snapshot : registry.snapshot()) {
+            FIELDS.forEach((field, getter) -> {
+                String type = getter.apply(snapshot) instanceof Double ? "double" : "long";
+                attributes.add(new MBeanAttributeInfo(snapshot.getName() + "." + field, type, field, true, false,
+                        false));
+            });
+        }
+        return new MBeanInfo(getClass().getName(), "Operation metrics",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[0], null);
+    }
+}
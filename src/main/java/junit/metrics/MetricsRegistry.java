@@ -0,0 +1,110 @@
+package junit.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Набор метрик операций по имени. Компоненты берут свои OperationMetrics один раз при создании, так что поиск по имени
+ * на горячем пути не происходит. disabled() раздает выключенные метрики
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry DISABLED = new MetricsRegistry(false);
+
+    private final boolean enabled;
+    private final Map<String, OperationMetrics> operations = new ConcurrentSkipListMap<>();
+    private final Map<ObjectName, MBeanServer> registeredBeans = new ConcurrentHashMap<>();
+
+    private MetricsRegistry(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public static MetricsRegistry create() {
+        return new MetricsRegistry(true);
+    }
+
+    public static MetricsRegistry disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public OperationMetrics operation(String name) {
+        if (!enabled) {
+            return new OperationMetrics(name, false);
+        }
+        return operations.computeIfAbsent(name, key -> new OperationMetrics(key, true));
+    }
+
+    /**
+     * Снимки всех операций в порядке имен
+     */
+    public List<OperationSnapshot> snapshot() {
+        List<OperationSnapshot> snapshots = new ArrayList<>(operations.size());
+        operations.values().forEach(operation -> snapshots.add(operation.snapshot()));
+        return snapshots;
+    }
+
+    public void exportTo(MetricsExporter exporter) {
+        exporter.export(snapshot());
+    }
+
+    /**
+     * Периодически отдает снимки экспортеру в отдельном потоке-демоне. Закрытие останавливает экспорт
+     */
+    public AutoCloseable exportEvery(Duration period, MetricsExporter exporter) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodNanos = period.toNanos();
+        scheduler.scheduleAtFixedRate(() -> exportTo(exporter), periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+        return scheduler::shutdownNow;
+    }
+
+    /**
+     * Публикует метрики в JMX: у MBean атрибуты вида "userService.login.p99Nanos"
+     */
+    public ObjectName registerMBean(String objectName) {
+        try {
+            ObjectName name = new ObjectName(objectName);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new MetricsMBean(this), name);
+            registeredBeans.put(name, server);
+            return name;
+        } catch (MalformedObjectNameException | InstanceAlreadyExistsException
+                 | MBeanRegistrationException | NotCompliantMBeanException e) {
+            throw new IllegalStateException("Cannot register metrics MBean " + objectName, e);
+        }
+    }
+
+    public void unregisterMBean(ObjectName name) {
+        MBeanServer server = registeredBeans.remove(name);
+        if (server == null) {
+            return;
+        }
+        try {
+            server.unregisterMBean(name);
+        } catch (InstanceNotFoundException | MBeanRegistrationException e) {
+            throw new IllegalStateException("Cannot unregister metrics MBean " + name, e);
+        }
+    }
+}
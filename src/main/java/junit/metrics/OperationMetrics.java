@@ -0,0 +1,57 @@
+package junit.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счетчики успехов/неудач и гистограмма задержек одной операции. Использование:
+ * <pre>
+ * long start = metrics.start();
+ * ... metrics.stop(start, success);
+ * </pre>
+ * Выключенный экземпляр не читает часы и ничего не пишет: остается одна предсказуемая проверка флага
+ */
+public class OperationMetrics {
+
+    private final String name;
+    private final boolean enabled;
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LatencyHistogram latency;
+
+    OperationMetrics(String name, boolean enabled) {
+        this.name = name;
+        this.enabled = enabled;
+        this.latency = enabled ? new LatencyHistogram() : null;
+    }
+
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public void stop(long start, boolean success) {
+        if (enabled) {
+            record(System.nanoTime() - start, success);
+        }
+    }
+
+    public void record(long nanos, boolean success) {
+        if (!enabled) {
+            return;
+        }
+        (success ? successes : failures).increment();
+        latency.record(nanos);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public OperationSnapshot snapshot() {
+        if (!enabled) {
+            return new OperationSnapshot(name, 0, 0, 0.0, 0, 0, 0, 0);
+        }
+        return new OperationSnapshot(name, successes.sum(), failures.sum(), latency.mean(),
+                latency.valueAtQuantile(0.5), latency.valueAtQuantile(0.99), latency.valueAtQuantile(0.999),
+                latency.max());
+    }
+}
@@ -0,0 +1,23 @@
+package junit.metrics;
+
+import lombok.Value;
+
+/**
+ * Состояние операции на момент снимка, задержки в наносекундах
+ */
+@Value
+public class OperationSnapshot {
+
+    String name;
+    long successes;
+    long failures;
+    double meanNanos;
+    long p50Nanos;
+    long p99Nanos;
+    long p999Nanos;
+    long maxNanos;
+
+    public long getCount() {
+        return successes + failures;
+    }
+}
@@ -0,0 +1,19 @@
+package junit.service;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class AsyncOptions {
+
+    /**
+     * Сколько вызовов может выполняться одновременно
+     */
+    @Builder.Default
+    int maxConcurrency = 256;
+
+    public static AsyncOptions defaults() {
+        return builder().build();
+    }
+}
@@ -0,0 +1,92 @@
+package junit.service;
+
+import junit.dto.User;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Асинхронный фасад над UserService. Каждый вызов выполняется в отдельном виртуальном потоке (на JDK 21+, на более
+ * старых JDK - в кэширующем пуле платформенных потоков), число одновременных вызовов ограничено maxConcurrency.
+ * Вызывающий поток никогда не блокируется: если все слоты заняты, сразу возвращается future, завершенный
+ * RejectedExecutionException. Для параллельных add/login сервис должен быть создан с StorageMode.CONCURRENT
+ */
+public class AsyncUserService implements AutoCloseable {
+
+    private final UserService userService;
+    private final AsyncOptions options;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+
+    public AsyncUserService(UserService userService) {
+        this(userService, AsyncOptions.defaults());
+    }
+
+    public AsyncUserService(UserService userService, AsyncOptions options) {
+        this(userService, options, newVirtualThreadExecutor());
+    }
+
+    public AsyncUserService(UserService userService, AsyncOptions options, ExecutorService executor) {
+        if (options.getMaxConcurrency() <= 0) {
+            throw new IllegalArgumentException("Max concurrency must be positive");
+        }
+        this.userService = userService;
+        this.options = options;
+        this.permits = new Semaphore(options.getMaxConcurrency());
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Optional<User>> loginAsync(String userName, String password) {
+        return submit(() -> userService.login(userName, password));
+    }
+
+    public CompletableFuture<Boolean> addAsync(User user) {
+        return submit(() -> userService.add(user));
+    }
+
+    public CompletableFuture<Boolean> deleteAsync(Integer userId) {
+        return submit(() -> userService.delete(userId));
+    }
+
+    public int availableSlots() {
+        return permits.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> call) {
+        if (!permits.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    "All " + options.getMaxConcurrency() + " slots are busy"));
+        }
+        try {
+            return CompletableFuture.supplyAsync(call, executor)
+                                    .whenComplete((result, error) -> permits.release());
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "async-user-service");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package junit.service;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Параметры по смыслу совпадают с @CsvFileSource. Номера колонок считаются с нуля, idColumn = -1 означает, что
+ * колонки id в файле нет и пользователи загружаются с id == null. hashedPasswords = true означает, что в колонке
+ * пароля уже лежит PasswordHash.encode() и хэшировать при загрузке ничего не нужно. Для больших файлов это
+ * предпочтительно: открытый пароль стоит при загрузке полного PBKDF2 на строку
+ */
+@Value
+@Builder
+public class CsvImportOptions {
+
+    @Builder.Default
+    char delimiter = ',';
+    @Builder.Default
+    int numLinesToSkip = 0;
+    @Builder.Default
+    int idColumn = -1;
+    @Builder.Default
+    int userNameColumn = 0;
+    @Builder.Default
+    int passwordColumn = 1;
+    @Builder.Default
+    int batchSize = 10_000;
+    @Builder.Default
+    boolean hashedPasswords = false;
+    @Builder.Default
+    Charset charset = StandardCharsets.UTF_8;
+
+    public static CsvImportOptions defaults() {
+        return builder().build();
+    }
+}
@@ -0,0 +1,228 @@
+package junit.service;
+
+import junit.dao.UserDao;
+import junit.dto.User;
+import junit.service.security.LoginThrottle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Пользователи, разделенные по имени на независимые UserService со своим хранилищем и своим UserDao, так что
+ * изменения в разных шардах не мешают друг другу. Шард выбирается jump consistent hash от имени: login и add
+ * обращаются к одному шарду, а при изменении числа шардов переезжает только ~1/N пользователей.
+ * delete по id идет в шарды, где пользователь с этим id есть, а если его нет нигде - в DAO всех шардов.
+ * getAll и getAllConvertedByID собирают результат со всех шардов по порядку шардов.
+ * Ограничитель попыток входа и слушатели изменений общие для всех шардов, метрики - общие через MetricsRegistry
+ * из настроек
+ */
+public class ShardedUserService {
+
+    private final UserServiceOptions options;
+    private final LoginThrottle loginThrottle;
+    private final List<UserChangeListener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * Владельцы строк переехавших пользователей: reshard переносит пользователей в памяти, но строки остаются
+     * в UserDao прежнего шарда, поэтому delete таких пользователей идет туда
+     */
+    private final Map<Integer, UserDao> rowOwners = new ConcurrentHashMap<>();
+    private volatile List<UserDao> shardDaos;
+    private volatile UserService[] shards;
+
+    public ShardedUserService(List<UserDao> shardDaos, UserServiceOptions options) {
+        if (shardDaos.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.options = options == null ? UserServiceOptions.defaults() : options;
+        this.loginThrottle = UserService.loginThrottle(this.options);
+        UserService[] created = new UserService[shardDaos.size()];
+        for (int i = 0; i < created.length; i++) {
+            created[i] = new UserService(shardDaos.get(i), this.options, loginThrottle);
+        }
+        this.shardDaos = List.copyOf(shardDaos);
+        this.shards = created;
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    public boolean add(User user) {
+        return shardFor(user.getUserName(), shards).add(user);
+    }
+
+    public void addAll(Collection<User> users) {
+        UserService[] current = shards;
+        List<List<User>> partitions = partition(users, current);
+        for (int i = 0; i < current.length; i++) {
+            if (!partitions.get(i).isEmpty()) {
+                current[i].addAll(partitions.get(i));
+            }
+        }
+    }
+
+    public Optional<User> login(String userName, String password) {
+        if (userName == null || password == null) {
+            throw new IllegalArgumentException("Username or password is null");
+        }
+        return shardFor(userName, shards).login(userName, password);
+    }
+
+    public boolean delete(Integer userId) {
+        UserService[] current = shards;
+        UserDao rowOwner = userId == null ? null : rowOwners.get(userId);
+        boolean found = false;
+        boolean deleted = false;
+        for (UserService shard : current) {
+            if (shard.findById(userId).isPresent()) {
+                found = true;
+                deleted |= rowOwner == null ? shard.delete(userId) : shard.delete(userId, rowOwner);
+            }
+        }
+        if (!found) {
+            for (UserService shard : current) {
+                deleted |= shard.delete(userId);
+            }
+            if (rowOwner != null && !shardDaos.contains(rowOwner)) {
+                deleted |= rowOwner.delete(userId);
+            }
+        }
+        if (deleted && rowOwner != null) {
+            rowOwners.remove(userId, rowOwner);
+        }
+        return deleted;
+    }
+
+    /**
+     * Слушатель получает add и delete всех шардов и остается подписан после reshard
+     */
+    public synchronized void addChangeListener(UserChangeListener listener) {
+        listeners.add(listener);
+        for (UserService shard : shards) {
+            shard.addChangeListener(listener);
+        }
+    }
+
+    public synchronized void removeChangeListener(UserChangeListener listener) {
+        listeners.remove(listener);
+        for (UserService shard : shards) {
+            shard.removeChangeListener(listener);
+        }
+    }
+
+    public Optional<User> findById(Integer userId) {
+        for (UserService shard : shards) {
+            Optional<User> user = shard.findById(userId);
+            if (user.isPresent()) {
+                return user;
+            }
+        }
+        return Optional.empty();
+    }
+
+    public List<User> getAll() {
+        UserService[] current = shards;
+        List<List<User>> parts = new ArrayList<>(current.length);
+        int size = 0;
+        for (UserService shard : current) {
+            List<User> part = shard.getAll();
+            parts.add(part);
+            size += part.size();
+        }
+        List<User> all = new ArrayList<>(size);
+        parts.forEach(all::addAll);
+        return Collections.unmodifiableList(all);
+    }
+
+    /**
+     * Для id, который есть в нескольких шардах, остается пользователь из шарда с меньшим номером
+     */
+    public Map<Integer, User> getAllConvertedByID() {
+        Map<Integer, User> byId = new HashMap<>();
+        for (UserService shard : shards) {
+            shard.getAllConvertedByID().forEach(byId::putIfAbsent);
+        }
+        return Collections.unmodifiableMap(byId);
+    }
+
+    /**
+     * Перераспределяет пользователей по новому набору шардов (DAO с тем же индексом продолжают обслуживать тот же
+     * шард). Хэши паролей переносятся, а не считаются заново. Строки в UserDao не переносятся: для переехавших
+     * пользователей запоминается DAO, где лежит строка, и delete идет в него. Слушатели, ограничитель попыток и метрики
+     * сохраняются; кэш проверенных паролей каждого шарда начинается заново. На время вызова add/delete должны быть
+     * приостановлены, иначе изменения, сделанные в старых шардах во время переноса, потеряются
+     */
+    public synchronized void reshard(List<UserDao> shardDaos) {
+        if (shardDaos.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        UserService[] current = shards;
+        List<UserDao> currentDaos = this.shardDaos;
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < current.length; i++) {
+            for (User user : current[i].saveState().getUsers()) {
+                users.add(user);
+                if (user.getId() != null) {
+                    UserDao rowOwner = rowOwners.getOrDefault(user.getId(), currentDaos.get(i));
+                    if (shardFor(user.getUserName(), shardDaos) == rowOwner) {
+                        rowOwners.remove(user.getId());
+                    } else {
+                        rowOwners.put(user.getId(), rowOwner);
+                    }
+                }
+            }
+        }
+
+        UserService[] resized = new UserService[shardDaos.size()];
+        List<List<User>> partitions = partition(users, resized);
+        for (int i = 0; i < resized.length; i++) {
+            resized[i] = UserService.restore(shardDaos.get(i), options, new UserServiceState(List.copyOf(partitions.get(i))),
+                    loginThrottle);
+            listeners.forEach(resized[i]::addChangeListener);
+        }
+        this.shardDaos = List.copyOf(shardDaos);
+        shards = resized;
+    }
+
+    private static List<List<User>> partition(Collection<User> users, UserService[] layout) {
+        List<List<User>> partitions = new ArrayList<>(layout.length);
+        for (int i = 0; i < layout.length; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (User user : users) {
+            partitions.get(shardIndex(user.getUserName(), layout.length)).add(user);
+        }
+        return partitions;
+    }
+
+    private static <T> T shardFor(String userName, T[] layout) {
+        return layout[shardIndex(userName, layout.length)];
+    }
+
+    private static <T> T shardFor(String userName, List<T> layout) {
+        return layout.get(shardIndex(userName, layout.size()));
+    }
+
+    /**
+     * Jump consistent hash (Lamping, Veach): при переходе от n к n + 1 шарду ключ либо остается, либо уходит в новый
+     */
+    static int shardIndex(String userName, int shardCount) {
+        long key = Objects.hashCode(userName) * 0x9E3779B97F4A7C15L;
+        long bucket = -1;
+        long next = 0;
+        while (next < shardCount) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+}
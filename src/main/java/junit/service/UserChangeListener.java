@@ -0,0 +1,15 @@
+package junit.service;
+
+import junit.dto.User;
+
+/**
+ * Получает изменения UserService после того, как они применены. Вызывается в потоке, который выполнил изменение,
+ * под замком полосы id: изменения одного id приходят в порядке применения. Поэтому слушатель должен быть быстрым и
+ * не менять UserService из других потоков, ожидая их
+ */
+public interface UserChangeListener {
+
+    void userAdded(User user);
+
+    void userDeleted(Integer userId);
+}
@@ -0,0 +1,136 @@
+package junit.service;
+
+import junit.dto.PasswordHash;
+import junit.dto.User;
+import lombok.Value;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Потоковая загрузка пользователей из CSV: файл читается построчно через буфер, строки разбираются без регулярных
+ * выражений и добавляются в UserService пачками по batchSize. Кавычки в значениях не поддерживаются.
+ * <p>
+ * Если в файле открытые пароли, каждый хэшируется здесь так же, как при регистрации (PBKDF2, порядка миллисекунд на
+ * строку), и хэширование, а не чтение файла, определяет время импорта. Поэтому пароли пачки хэшируются параллельно
+ * в общем ForkJoinPool. Для больших файлов лучше выгружать готовые хэши (CsvImportOptions.hashedPasswords): они
+ * только декодируются
+ */
+public class UserCsvImporter {
+
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private final CsvImportOptions options;
+
+    public UserCsvImporter(CsvImportOptions options) {
+        if (options.getBatchSize() <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.options = options;
+    }
+
+    /**
+     * @return сколько пользователей загружено
+     */
+    public long importInto(UserService userService, Path file) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(file), options.getCharset()), READ_BUFFER_SIZE)) {
+            return importInto(userService, reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long importInto(UserService userService, BufferedReader reader) throws IOException {
+        int lastColumn = Math.max(options.getIdColumn(), Math.max(options.getUserNameColumn(), options.getPasswordColumn()));
+        String[] columns = new String[lastColumn + 1];
+        List<Row> batch = new ArrayList<>(options.getBatchSize());
+        long imported = 0L;
+        long lineNumber = 0L;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber <= options.getNumLinesToSkip() || line.isBlank()) {
+                continue;
+            }
+            split(line, lineNumber, columns);
+            batch.add(new Row(parseId(columns, lineNumber), columns[options.getUserNameColumn()],
+                    columns[options.getPasswordColumn()], lineNumber));
+            if (batch.size() == options.getBatchSize()) {
+                imported += addAll(userService, batch);
+                batch = new ArrayList<>(options.getBatchSize());
+            }
+        }
+        if (!batch.isEmpty()) {
+            imported += addAll(userService, batch);
+        }
+        return imported;
+    }
+
+    /**
+     * Готовые хэши декодируются последовательно, открытые пароли хэшируются параллельно; порядок строк сохраняется
+     */
+    private int addAll(UserService userService, List<Row> batch) {
+        Stream<Row> rows = options.isHashedPasswords() ? batch.stream() : batch.parallelStream();
+        userService.addAll(rows.map(row -> User.of(row.getId(), row.getUserName(), passwordHash(userService, row)))
+                               .collect(Collectors.toList()));
+        return batch.size();
+    }
+
+    private void split(String line, long lineNumber, String[] columns) {
+        int start = 0;
+        for (int column = 0; column < columns.length; column++) {
+            if (start > line.length()) {
+                throw new IllegalArgumentException("Line " + lineNumber + " has " + column + " columns, expected at least " + columns.length);
+            }
+            int end = line.indexOf(options.getDelimiter(), start);
+            if (end < 0) {
+                end = line.length();
+            }
+            columns[column] = line.substring(start, end).trim();
+            start = end + 1;
+        }
+    }
+
+    private PasswordHash passwordHash(UserService userService, Row row) {
+        if (!options.isHashedPasswords()) {
+            return userService.hashPassword(row.getPassword());
+        }
+        try {
+            return PasswordHash.decode(row.getPassword());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Line " + row.getLineNumber() + " has invalid password hash", e);
+        }
+    }
+
+    private Integer parseId(String[] columns, long lineNumber) {
+        if (options.getIdColumn() < 0) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(columns[options.getIdColumn()]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Line " + lineNumber + " has invalid id: " + columns[options.getIdColumn()], e);
+        }
+    }
+
+    /**
+     * Разобранная строка файла до хэширования пароля
+     */
+    @Value
+    private static class Row {
+
+        Integer id;
+        String userName;
+        String password;
+        long lineNumber;
+    }
+}
@@ -0,0 +1,41 @@
+package junit.service;
+
+import junit.dto.User;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntFunction;
+
+/**
+ * Страница результатов запроса. Следующая страница вычисляется только при вызове next() по данным на момент вызова
+ */
+public class UserPage {
+
+    private final List<User> content;
+    private final int number;
+    private final boolean hasNext;
+    private final IntFunction<UserPage> pages;
+
+    UserPage(List<User> content, int number, boolean hasNext, IntFunction<UserPage> pages) {
+        this.content = List.copyOf(content);
+        this.number = number;
+        this.hasNext = hasNext;
+        this.pages = pages;
+    }
+
+    public List<User> getContent() {
+        return content;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    public Optional<UserPage> next() {
+        return hasNext ? Optional.of(pages.apply(number + 1)) : Optional.empty();
+    }
+}
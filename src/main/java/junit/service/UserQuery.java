@@ -0,0 +1,30 @@
+package junit.service;
+
+import junit.dto.User;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.function.Predicate;
+
+/**
+ * Условия выборки пользователей: префикс имени и/или произвольный предикат, плюс размер страницы
+ */
+@Value
+@Builder
+public class UserQuery {
+
+    String userNamePrefix;
+    Predicate<User> filter;
+    @Builder.Default
+    int pageSize = 50;
+
+    public static UserQuery all() {
+        return builder().build();
+    }
+
+    boolean matches(User user) {
+        return (userNamePrefix == null
+                || user.getUserName() != null && user.getUserName().startsWith(userNamePrefix))
+               && (filter == null || filter.test(user));
+    }
+}
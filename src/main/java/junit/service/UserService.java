@@ -1,48 +1,380 @@
 package junit.service;
 
 import junit.dao.UserDao;
+import junit.cache.CacheStats;
+import junit.dto.PasswordHash;
 import junit.dto.User;
+import junit.metrics.OperationMetrics;
+import junit.service.feed.UserChangeFeed;
+import junit.service.persistence.UserChangeLog;
+import junit.service.persistence.UserSnapshot;
+import junit.service.security.Credentials;
+import junit.service.security.LoginThrottle;
+import junit.service.store.UserNamePrefixIndex;
+import junit.service.store.UserStore;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-
-import static java.util.function.Function.identity;
-import static java.util.stream.Collectors.toMap;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class UserService {
 
-    private final List<User> users = new ArrayList<>();
+    private static final int ID_STRIPES = 64;
+
+    private final UserStore store;
+    private final UserNamePrefixIndex userNamePrefixIndex = new UserNamePrefixIndex();
+    private final Credentials credentials;
+    private final LoginThrottle loginThrottle;
     private final UserDao userDao;
+    private final int parallelQueryThreshold;
+    private final List<UserChangeListener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * Изменение хранилища и оповещение слушателей идут под замком полосы id: для одного id порядок оповещений (и
+     * номеров в UserChangeFeed) совпадает с порядком применения. Разные id друг друга не ждут
+     */
+    private final ReentrantLock[] idLocks = new ReentrantLock[ID_STRIPES];
+    private final OperationMetrics loginMetrics;
+    private final OperationMetrics addMetrics;
+    private final OperationMetrics deleteMetrics;
 
     public UserService(UserDao userDao) {
+        this(userDao, UserServiceOptions.defaults());
+    }
+
+    /**
+     * options == null означает настройки по умолчанию (так конструктор вызывает, например, @InjectMocks)
+     */
+    public UserService(UserDao userDao, UserServiceOptions options) {
+        this(userDao, options, loginThrottle(options));
+    }
+
+    /**
+     * Сервис с заданным ограничителем попыток входа (null - без ограничения): так шарды ShardedUserService делят один
+     * ограничитель, и его состояние переживает перераспределение
+     */
+    UserService(UserDao userDao, UserServiceOptions options, LoginThrottle loginThrottle) {
+        UserServiceOptions effective = options == null ? UserServiceOptions.defaults() : options;
         this.userDao = userDao;
+        this.parallelQueryThreshold = effective.getParallelQueryThreshold();
+        this.store = effective.getStorageMode().createStore();
+        this.credentials = new Credentials(effective.getPasswordHasher(), effective.getVerifiedCredentialsCache());
+        this.loginThrottle = loginThrottle;
+        this.loginMetrics = effective.getMetrics().operation("userService.login");
+        this.addMetrics = effective.getMetrics().operation("userService.add");
+        this.deleteMetrics = effective.getMetrics().operation("userService.delete");
+        for (int stripe = 0; stripe < ID_STRIPES; stripe++) {
+            idLocks[stripe] = new ReentrantLock();
+        }
+    }
+
+    static LoginThrottle loginThrottle(UserServiceOptions options) {
+        return options == null || options.getLoginThrottle() == null ? null : new LoginThrottle(options.getLoginThrottle());
     }
 
     public boolean delete (Integer userId) {
-        return userDao.delete(userId);
+        return delete(userId, userDao);
+    }
+
+    /**
+     * Удаление, когда строка пользователя лежит не в своем UserDao, а в rowOwner (пользователь переехал в этот шард
+     * при перераспределении, см. ShardedUserService.reshard)
+     */
+    boolean delete(Integer userId, UserDao rowOwner) {
+        long start = deleteMetrics.start();
+        boolean success = false;
+        try {
+            boolean deleted = rowOwner.delete(userId);
+            if (deleted) {
+                evictAndNotify(userId);
+            }
+            success = true;
+            return deleted;
+        } finally {
+            deleteMetrics.stop(start, success);
+        }
+    }
+
+    public Map<Integer, Boolean> deleteAll(Collection<Integer> userIds) {
+        Map<Integer, Boolean> results = userDao.deleteAll(userIds);
+        results.forEach((userId, deleted) -> {
+            if (Boolean.TRUE.equals(deleted)) {
+                evictAndNotify(userId);
+            }
+        });
+        return results;
     }
 
     public List<User> getAll() {
-        return users;
+        return store.getAll();
+    }
+
+    /**
+     * Регистрация с паролем в открытом виде: хэш считается здесь, один раз, и дальше хранится только он
+     */
+    public User register(Integer id, String userName, String password) {
+        if (userName == null || password == null) {
+            throw new IllegalArgumentException("Username or password is null");
+        }
+        User user = User.of(id, userName, hashPassword(password));
+        add(user);
+        return user;
     }
 
+    public PasswordHash hashPassword(String password) {
+        return credentials.hash(password);
+    }
+
+    /**
+     * Добавляет пользователя с уже посчитанным хэшем пароля (импорт, перенос, восстановление), без хэширования
+     */
     public boolean add(User user) {
-        return users.add(user);
+        long start = addMetrics.start();
+        boolean success = false;
+        try {
+            boolean added;
+            ReentrantLock lock = idLock(user.getId());
+            lock.lock();
+            try {
+                added = put(user);
+                for (UserChangeListener listener : listeners) {
+                    listener.userAdded(user);
+                }
+            } finally {
+                lock.unlock();
+            }
+            success = true;
+            return added;
+        } finally {
+            addMetrics.stop(start, success);
+        }
+    }
+
+    /**
+     * Пачка берет замки всех своих полос по возрастанию номера (так две пачки не заблокируют друг друга) и
+     * добавляется целиком
+     */
+    public void addAll(Collection<User> users) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        users.forEach(user -> stripes.add(stripe(user.getId())));
+        stripes.forEach(stripe -> idLocks[stripe].lock());
+        try {
+            putAll(users);
+            for (UserChangeListener listener : listeners) {
+                users.forEach(listener::userAdded);
+            }
+        } finally {
+            stripes.descendingSet().forEach(stripe -> idLocks[stripe].unlock());
+        }
+    }
+
+    public void addChangeListener(UserChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(UserChangeListener listener) {
+        listeners.remove(listener);
     }
 
+    /**
+     * Создает ленту изменений на capacity последних add/delete (степень двойки) и подписывает ее на сервис
+     */
+    public UserChangeFeed openChangeFeed(int capacity) {
+        UserChangeFeed feed = new UserChangeFeed(capacity);
+        addChangeListener(feed);
+        return feed;
+    }
+
+    /**
+     * Восстанавливает пустой сервис из снимка и журнала изменений (любого из них может не быть), затем открывает журнал
+     * на дозапись и подписывает его на дальнейшие add/delete. Восстановление не обращается к UserDao
+     */
+    public UserChangeLog recover(Path snapshot, Path changeLog, boolean syncEveryWrite) {
+        long snapshotSequence = 0L;
+        if (Files.exists(snapshot)) {
+            UserSnapshot.Contents contents = UserSnapshot.read(snapshot);
+            putAll(contents.getUsers());
+            snapshotSequence = contents.getChangeLogSequence();
+        }
+        UserChangeLog.replay(changeLog, snapshotSequence, new UserChangeListener() {
+            @Override
+            public void userAdded(User user) {
+                put(user);
+            }
+
+            @Override
+            public void userDeleted(Integer userId) {
+                evict(userId);
+            }
+        });
+        UserChangeLog log = UserChangeLog.open(changeLog, snapshotSequence, syncEveryWrite);
+        addChangeListener(log);
+        return log;
+    }
+
+    /**
+     * Копия состояния в памяти: пользователи вместе с хэшами паролей. Слушатели и кэш проверенных паролей
+     * в состояние не входят
+     */
+    public UserServiceState saveState() {
+        return new UserServiceState(List.copyOf(store.getAll()));
+    }
+
+    /**
+     * Новый сервис с сохраненным состоянием. Хэши паролей переносятся как есть, так что восстановление стоит O(n)
+     * независимо от стоимости хэширования
+     */
+    public static UserService restore(UserDao userDao, UserServiceOptions options, UserServiceState state) {
+        return restore(userDao, options, state, loginThrottle(options));
+    }
+
+    static UserService restore(UserDao userDao, UserServiceOptions options, UserServiceState state,
+                               LoginThrottle loginThrottle) {
+        UserService userService = new UserService(userDao, options, loginThrottle);
+        userService.store.addAll(state.getUsers());
+        state.getUsers().forEach(user -> userService.userNamePrefixIndex.add(user.getUserName()));
+        return userService;
+    }
+
+    /**
+     * Пишет снимок всех пользователей и очищает журнал. На время вызова add/delete должны быть приостановлены,
+     * иначе изменение может попасть и в снимок, и в журнал
+     */
+    public void checkpoint(Path snapshot, UserChangeLog changeLog, boolean compress) {
+        UserSnapshot.write(snapshot, getAll(), changeLog.lastSequence(), compress);
+        changeLog.truncate();
+    }
+
+    /**
+     * В метриках неудачей считается и неверный пароль, и исключение
+     *
+     * @throws junit.service.security.LoginThrottledException если включено ограничение попыток и они исчерпаны;
+     *                                                         пароль в этом случае не проверяется
+     */
     public Optional<User> login(String userName, String password) {
         if (userName == null || password == null) {
             throw new IllegalArgumentException("Username or password is null");
         }
-        return users.stream()
-                    .filter(user -> user.getUserName().equals(userName))
-                    .filter(user -> user.getPassword().equals(password))
-                    .findFirst();
+        long start = loginMetrics.start();
+        Optional<User> user = Optional.empty();
+        try {
+            if (loginThrottle != null) {
+                loginThrottle.acquire(userName);
+            }
+            user = credentials.verify(store.findByUserName(userName), userName, password);
+            return user;
+        } finally {
+            loginMetrics.stop(start, user.isPresent());
+        }
+    }
+
+    public Optional<CacheStats> verifiedCredentialsCacheStats() {
+        return credentials.verifiedCacheStats();
+    }
+
+    /**
+     * Автодополнение: до limit пользователей, чьи имена начинаются с prefix, в лексикографическом порядке имен
+     * (пользователи с одинаковым именем - в порядке добавления)
+     */
+    public List<User> findByUsernamePrefix(String prefix, int limit) {
+        if (prefix == null || limit < 0) {
+            throw new IllegalArgumentException("Prefix is null or limit is negative");
+        }
+        List<User> result = new ArrayList<>(Math.min(limit, 16));
+        for (String userName : userNamePrefixIndex.find(prefix, limit)) {
+            for (User user : store.findByUserName(userName)) {
+                if (result.size() == limit) {
+                    return result;
+                }
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    public UserPage query(UserQuery query) {
+        return query(query, 0);
+    }
+
+    public UserPage query(UserQuery query, int pageNumber) {
+        if (query.getPageSize() <= 0 || pageNumber < 0) {
+            throw new IllegalArgumentException("Page size must be positive and page number must not be negative");
+        }
+        List<User> matched = scan(query).skip((long) pageNumber * query.getPageSize())
+                                        .limit(query.getPageSize() + 1L)
+                                        .collect(Collectors.toList());
+        boolean hasNext = matched.size() > query.getPageSize();
+        return new UserPage(hasNext ? matched.subList(0, query.getPageSize()) : matched, pageNumber, hasNext,
+                next -> query(query, next));
+    }
+
+    public long count(UserQuery query) {
+        return scan(query).count();
     }
 
+    private Stream<User> scan(UserQuery query) {
+        List<User> users = store.getAll();
+        Stream<User> stream = users.size() >= parallelQueryThreshold ? users.parallelStream() : users.stream();
+        return stream.filter(query::matches);
+    }
+
+    public Optional<User> findById(Integer userId) {
+        return store.findById(userId);
+    }
+
+    /**
+     * Неизменяемое представление индекса по id. Для повторяющихся id в нем остается первый добавленный пользователь
+     */
     public Map<Integer, User> getAllConvertedByID() {
-        return users.stream().collect(toMap(User::getId, identity()));
+        return store.byId();
+    }
+
+    private boolean put(User user) {
+        boolean added = store.add(user);
+        userNamePrefixIndex.add(user.getUserName());
+        return added;
+    }
+
+    private void putAll(Collection<User> users) {
+        store.addAll(users);
+        users.forEach(user -> userNamePrefixIndex.add(user.getUserName()));
+    }
+
+    private void evictAndNotify(Integer userId) {
+        ReentrantLock lock = idLock(userId);
+        lock.lock();
+        try {
+            evict(userId);
+            for (UserChangeListener listener : listeners) {
+                listener.userDeleted(userId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock idLock(Integer userId) {
+        return idLocks[stripe(userId)];
+    }
+
+    private static int stripe(Integer userId) {
+        if (userId == null) {
+            return 0;
+        }
+        int hash = userId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (ID_STRIPES - 1);
+    }
+
+    private void evict(Integer userId) {
+        List<User> removed = store.remove(userId);
+        removed.forEach(user -> userNamePrefixIndex.remove(user.getUserName()));
     }
 }
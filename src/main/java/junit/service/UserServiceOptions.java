@@ -0,0 +1,55 @@
+package junit.service;
+
+import junit.cache.CacheConfig;
+import junit.metrics.MetricsRegistry;
+import junit.service.security.PasswordHasher;
+import junit.service.security.ThrottleConfig;
+import junit.service.store.StorageMode;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+@Builder
+public class UserServiceOptions {
+
+    @Builder.Default
+    StorageMode storageMode = StorageMode.LIST;
+    /**
+     * Стоимость хэширования паролей. Хэш считается при каждом добавлении пользователя, так что при массовой загрузке
+     * она умножается на число пользователей
+     */
+    @Builder.Default
+    PasswordHasher passwordHasher = new PasswordHasher(10_000);
+    /**
+     * Кэш успешно проверенных пар имя/пароль, null отключает кэш
+     */
+    @Builder.Default
+    CacheConfig verifiedCredentialsCache = CacheConfig.builder()
+                                                      .maxSize(10_000)
+                                                      .ttl(Duration.ofMinutes(5))
+                                                      .build();
+
+    /**
+     * Начиная с какого числа пользователей query и count сканируют параллельно (в общем ForkJoinPool)
+     */
+    @Builder.Default
+    int parallelQueryThreshold = 10_000;
+
+    /**
+     * Ограничение попыток входа по имени и в целом, null (по умолчанию) отключает ограничение
+     */
+    @Builder.Default
+    ThrottleConfig loginThrottle = null;
+
+    /**
+     * Метрики login/add/delete (операции "userService.*"), по умолчанию выключены
+     */
+    @Builder.Default
+    MetricsRegistry metrics = MetricsRegistry.disabled();
+
+    public static UserServiceOptions defaults() {
+        return builder().build();
+    }
+}
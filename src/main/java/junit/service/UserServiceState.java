@@ -0,0 +1,23 @@
+package junit.service;
+
+import junit.dto.User;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Сохраненное состояние UserService (см. saveState и restore). Неизменяемо, поэтому одно состояние можно
+ * восстанавливать сколько угодно раз и из разных потоков
+ */
+@Getter(AccessLevel.PACKAGE)
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class UserServiceState {
+
+    private final List<User> users;
+
+    public int size() {
+        return users.size();
+    }
+}
@@ -0,0 +1,18 @@
+package junit.service.feed;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Очередная порция ленты. lastSequence - номер, с которого запрашивать следующую порцию. missed == true значит, что
+ * потребитель отстал больше чем на емкость ленты: порция пуста, нужно заново прочитать все состояние и продолжить
+ * с lastSequence (он взят до возврата из poll, так что новое состояние его уже покрывает)
+ */
+@Value
+public class ChangeBatch {
+
+    List<UserChangeEvent> events;
+    long lastSequence;
+    boolean missed;
+}
@@ -0,0 +1,20 @@
+package junit.service.feed;
+
+import junit.dto.User;
+import lombok.Value;
+
+/**
+ * Изменение с номером в ленте. Для DELETED user == null
+ */
+@Value
+public class UserChangeEvent {
+
+    public enum Type {
+        ADDED, DELETED
+    }
+
+    long sequence;
+    Type type;
+    Integer userId;
+    User user;
+}
@@ -0,0 +1,97 @@
+package junit.service.feed;
+
+import junit.dto.User;
+import junit.service.UserChangeListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Лента изменений UserService в кольцевом буфере фиксированной емкости: подписчики забирают изменения порциями,
+ * начиная с известного им номера, вместо копирования всего списка пользователей. Запись без блокировок: номер
+ * берется одним incrementAndGet, событие кладется в ячейку CAS-ом, только если в ней не лежит более новое. Чтение
+ * ничего не меняет, так что читателей может быть сколько угодно, и каждый идет в своем темпе (отставший больше чем на
+ * емкость получает missed и начинает заново).
+ * UserService оповещает под замком полосы id, поэтому для одного id номера идут в порядке применения изменений;
+ * изменения разных id при параллельной записи могут получить номера в любом порядке, но на итог это не влияет.
+ * Чтобы начать зеркалирование, нужно запомнить lastSequence(), затем прочитать getAll() и применять порции начиная
+ * с запомненного номера, идемпотентно по id: часть этих изменений уже может быть в прочитанном состоянии
+ */
+public class UserChangeFeed implements UserChangeListener {
+
+    private final AtomicReferenceArray<UserChangeEvent> slots;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong();
+
+    public UserChangeFeed(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a positive power of two");
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    @Override
+    public void userAdded(User user) {
+        publish(UserChangeEvent.Type.ADDED, user.getId(), user);
+    }
+
+    @Override
+    public void userDeleted(Integer userId) {
+        publish(UserChangeEvent.Type.DELETED, userId, null);
+    }
+
+    /**
+     * Номер последнего захваченного изменения (0, если изменений не было)
+     */
+    public long lastSequence() {
+        return cursor.get();
+    }
+
+    /**
+     * До maxEvents изменений с номерами больше afterSequence, подряд и без пропусков. Если следующее изменение еще
+     * записывается другим потоком, порция заканчивается перед ним
+     */
+    public ChangeBatch poll(long afterSequence, int maxEvents) {
+        if (maxEvents <= 0) {
+            throw new IllegalArgumentException("maxEvents must be positive");
+        }
+        long last = cursor.get();
+        if (afterSequence + 1 < last - mask) {
+            return new ChangeBatch(List.of(), last, true);
+        }
+        long next = afterSequence + 1;
+        List<UserChangeEvent> events = new ArrayList<>(Math.min(maxEvents, (int) Math.max(0L, last - next + 1)));
+        while (next <= last && events.size() < maxEvents) {
+            UserChangeEvent event = slots.get((int) next & mask);
+            if (event == null || event.getSequence() < next) {
+                break;
+            }
+            if (event.getSequence() > next) {
+                // пока читали, ячейку перезаписали: потребитель отстал
+                return new ChangeBatch(List.of(), last, true);
+            }
+            events.add(event);
+            next++;
+        }
+        return new ChangeBatch(List.copyOf(events), next - 1, false);
+    }
+
+    private void publish(UserChangeEvent.Type type, Integer userId, User user) {
+        long sequence = cursor.incrementAndGet();
+        UserChangeEvent event = new UserChangeEvent(sequence, type, userId, user);
+        int slot = (int) sequence & mask;
+        while (true) {
+            UserChangeEvent current = slots.get(slot);
+            if (current != null && current.getSequence() > sequence) {
+                // писатель опоздал больше чем на круг, ячейку уже занял более новый номер
+                return;
+            }
+            if (slots.compareAndSet(slot, current, event)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package junit.service.persistence;
+
+import junit.dto.User;
+import junit.service.UserChangeListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Журнал изменений между снимками, только дозапись. Запись: номер (long), операция (byte), затем пользователь
+ * в формате UserRecords для добавления или id для удаления. Недописанная последняя запись (сбой во время записи)
+ * при чтении отбрасывается
+ */
+public class UserChangeLog implements UserChangeListener, AutoCloseable {
+
+    private static final byte ADD = 1;
+    private static final byte DELETE = 2;
+
+    private final FileChannel channel;
+    private final boolean syncEveryWrite;
+    private long lastSequence;
+
+    private UserChangeLog(FileChannel channel, boolean syncEveryWrite, long lastSequence) {
+        this.channel = channel;
+        this.syncEveryWrite = syncEveryWrite;
+        this.lastSequence = lastSequence;
+    }
+
+    /**
+     * Открывает журнал на дозапись. Нумерация продолжается с большего из номера последней записи в файле и
+     * afterSequence (номера, которым заканчивается снимок), недописанный хвост файла отрезается
+     *
+     * @param syncEveryWrite сбрасывать ли каждую запись на диск (надежнее, но каждая операция ждет fsync)
+     */
+    public static UserChangeLog open(Path file, long afterSequence, boolean syncEveryWrite) {
+        Scan scan = scan(file, Long.MAX_VALUE, null);
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            channel.truncate(scan.validLength);
+            channel.position(scan.validLength);
+            return new UserChangeLog(channel, syncEveryWrite, Math.max(scan.lastSequence, afterSequence));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Передает слушателю записи с номером больше afterSequence и возвращает номер последней записи в журнале
+     * (0, если журнала нет или он пуст)
+     */
+    public static long replay(Path file, long afterSequence, UserChangeListener listener) {
+        return scan(file, afterSequence, listener).lastSequence;
+    }
+
+    @Override
+    public synchronized void userAdded(User user) {
+        byte[] userName = UserRecords.utf8(user.getUserName());
+        ByteBuffer record = ByteBuffer.allocate(Long.BYTES + 1
+                                                + UserRecords.encodedSize(userName, user.getPasswordHash(), user.getId()));
+        record.putLong(++lastSequence).put(ADD);
+        UserRecords.put(record, user.getId(), userName, user.getPasswordHash());
+        append(record);
+    }
+
+    @Override
+    public synchronized void userDeleted(Integer userId) {
+        if (userId == null) {
+            return;
+        }
+        ByteBuffer record = ByteBuffer.allocate(Long.BYTES + 1 + Integer.BYTES);
+        record.putLong(++lastSequence).put(DELETE).putInt(userId);
+        append(record);
+    }
+
+    public synchronized long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Очищает журнал после того, как его содержимое попало в снимок. Нумерация записей продолжается
+     */
+    public synchronized void truncate() {
+        try {
+            channel.truncate(0L);
+            channel.position(0L);
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void append(ByteBuffer record) {
+        record.flip();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            if (syncEveryWrite) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Scan scan(Path file, long afterSequence, UserChangeListener listener) {
+        Scan scan = new Scan();
+        if (!Files.exists(file)) {
+            return scan;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer log = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (log.hasRemaining()) {
+                try {
+                    long sequence = log.getLong();
+                    byte operation = log.get();
+                    if (operation == ADD) {
+                        User user = UserRecords.get(log);
+                        if (sequence > afterSequence) {
+                            listener.userAdded(user);
+                        }
+                    } else if (operation == DELETE) {
+                        int userId = log.getInt();
+                        if (sequence > afterSequence) {
+                            listener.userDeleted(userId);
+                        }
+                    } else {
+                        break;
+                    }
+                    scan.lastSequence = sequence;
+                    scan.validLength = log.position();
+                } catch (BufferUnderflowException e) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return scan;
+    }
+
+    private static final class Scan {
+
+        private long lastSequence;
+        private long validLength;
+    }
+}
@@ -0,0 +1,102 @@
+package junit.service.persistence;
+
+import junit.dto.PasswordHash;
+import junit.dto.User;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Двоичная запись пользователя: байт флагов (бит 0 - есть id), id (int, только если есть), имя в UTF-8, затем хэш
+ * пароля: число итераций, соль и хэш. Длины и число итераций - в формате varint. Пароль в открытом виде не пишется
+ */
+final class UserRecords {
+
+    private static final int HAS_ID = 1;
+
+    private UserRecords() {
+    }
+
+    static int encodedSize(byte[] userName, PasswordHash passwordHash, Integer id) {
+        return 1 + (id == null ? 0 : Integer.BYTES)
+               + varintSize(userName.length) + userName.length
+               + varintSize(passwordHash.getIterations())
+               + varintSize(passwordHash.getSalt().length) + passwordHash.getSalt().length
+               + varintSize(passwordHash.getHash().length) + passwordHash.getHash().length;
+    }
+
+    static void put(ByteBuffer buffer, Integer id, byte[] userName, PasswordHash passwordHash) {
+        buffer.put((byte) (id == null ? 0 : HAS_ID));
+        if (id != null) {
+            buffer.putInt(id);
+        }
+        putVarint(buffer, userName.length);
+        buffer.put(userName);
+        putVarint(buffer, passwordHash.getIterations());
+        putVarint(buffer, passwordHash.getSalt().length);
+        buffer.put(passwordHash.getSalt());
+        putVarint(buffer, passwordHash.getHash().length);
+        buffer.put(passwordHash.getHash());
+    }
+
+    static User get(ByteBuffer buffer) {
+        byte flags = buffer.get();
+        Integer id = (flags & HAS_ID) != 0 ? buffer.getInt() : null;
+        String userName = getString(buffer);
+        int iterations = getVarint(buffer);
+        byte[] salt = getBytes(buffer);
+        byte[] hash = getBytes(buffer);
+        return User.of(id, userName, new PasswordHash(salt, hash, iterations));
+    }
+
+    static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[getVarint(buffer)];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = getVarint(buffer);
+        if (buffer.hasArray()) {
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,177 @@
+package junit.service.persistence;
+
+import junit.dto.User;
+import lombok.Value;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Снимок пользователей в компактном двоичном формате. Заголовок: магическое число, версия, флаги (бит 0 - тело сжато
+ * Deflate), число пользователей, номер последней записи журнала изменений, вошедшей в снимок, и длина несжатого тела.
+ * Тело - записи UserRecords подряд. Запись идет через FileChannel во временный файл, который затем атомарно заменяет
+ * старый снимок; чтение - через отображение файла в память. Размер тела ограничен 2 ГБ
+ */
+public final class UserSnapshot {
+
+    private static final int MAGIC = 0x55534E50;
+    private static final byte VERSION = 1;
+    private static final byte COMPRESSED = 1;
+    private static final int HEADER_SIZE = Integer.BYTES + 2 + Integer.BYTES + Long.BYTES + Long.BYTES;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private UserSnapshot() {
+    }
+
+    @Value
+    public static class Contents {
+
+        List<User> users;
+        long changeLogSequence;
+    }
+
+    public static void write(Path file, Collection<User> users, long changeLogSequence, boolean compress) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_SIZE);
+            long bodyLength = writeBody(channel, users, compress ? new Deflater(Deflater.BEST_SPEED) : null);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                                          .putInt(MAGIC)
+                                          .put(VERSION)
+                                          .put(compress ? COMPRESSED : 0)
+                                          .putInt(users.size())
+                                          .putLong(changeLogSequence)
+                                          .putLong(bodyLength)
+                                          .flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static Contents read(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() - HEADER_SIZE > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Snapshot " + file + " is larger than 2 GB");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.getInt() != MAGIC) {
+                throw new IllegalStateException(file + " is not a user snapshot");
+            }
+            byte version = mapped.get();
+            if (version != VERSION) {
+                throw new IllegalStateException(file + " has unsupported snapshot version " + version);
+            }
+            boolean compressed = (mapped.get() & COMPRESSED) != 0;
+            int count = mapped.getInt();
+            long changeLogSequence = mapped.getLong();
+            long bodyLength = mapped.getLong();
+            ByteBuffer body = compressed ? inflate(mapped, bodyLength) : mapped;
+
+            List<User> users = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                users.add(UserRecords.get(body));
+            }
+            return new Contents(users, changeLogSequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long writeBody(FileChannel channel, Collection<User> users, Deflater deflater) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_SIZE);
+        ByteBuffer compressed = deflater == null ? null : ByteBuffer.allocateDirect(CHUNK_SIZE);
+        long bodyLength = 0L;
+        for (User user : users) {
+            byte[] userName = UserRecords.utf8(user.getUserName());
+            int size = UserRecords.encodedSize(userName, user.getPasswordHash(), user.getId());
+            if (chunk.remaining() < size) {
+                flush(channel, chunk, deflater, compressed);
+            }
+            ByteBuffer target = size <= chunk.capacity() ? chunk : ByteBuffer.allocate(size);
+            UserRecords.put(target, user.getId(), userName, user.getPasswordHash());
+            if (target != chunk) {
+                flush(channel, target, deflater, compressed);
+            }
+            bodyLength += size;
+        }
+        flush(channel, chunk, deflater, compressed);
+        if (deflater != null) {
+            deflater.finish();
+            while (!deflater.finished()) {
+                drain(channel, deflater, compressed);
+            }
+            deflater.end();
+        }
+        return bodyLength;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer chunk, Deflater deflater, ByteBuffer compressed)
+            throws IOException {
+        chunk.flip();
+        if (deflater == null) {
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+        } else {
+            deflater.setInput(chunk);
+            while (!deflater.needsInput()) {
+                drain(channel, deflater, compressed);
+            }
+        }
+        chunk.clear();
+    }
+
+    private static void drain(FileChannel channel, Deflater deflater, ByteBuffer compressed) throws IOException {
+        deflater.deflate(compressed);
+        compressed.flip();
+        while (compressed.hasRemaining()) {
+            channel.write(compressed);
+        }
+        compressed.clear();
+    }
+
+    private static ByteBuffer inflate(ByteBuffer input, long bodyLength) {
+        if (bodyLength > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Compressed snapshot body is larger than 2 GB");
+        }
+        ByteBuffer body = ByteBuffer.allocate((int) bodyLength);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            while (body.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(body) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Compressed snapshot is truncated");
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Compressed snapshot is corrupted", e);
+        } finally {
+            inflater.end();
+        }
+        return body.flip();
+    }
+}
@@ -0,0 +1,102 @@
+package junit.service.security;
+
+import junit.cache.CacheConfig;
+import junit.cache.CacheStats;
+import junit.cache.LruCache;
+import junit.dto.PasswordHash;
+import junit.dto.User;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Проверка пароля по соленому хэшу, который хранится в самом User, и кэш уже проверенных пар имя/пароль. Ключ
+ * кэша - SHA-256 от секрета экземпляра, имени и пароля, так что сам пароль в кэше не хранится. Неудачные попытки
+ * не кэшируются, а результат из кэша действителен, только пока пользователь есть среди кандидатов
+ */
+public class Credentials {
+
+    private final PasswordHasher hasher;
+    private final LruCache<String, User> verified;
+    private final byte[] cacheSecret = new byte[32];
+    private volatile PasswordHash dummyHash;
+
+    public Credentials(PasswordHasher hasher, CacheConfig verifiedCache) {
+        this.hasher = hasher;
+        this.verified = verifiedCache == null
+                ? null
+                : new LruCache<>(verifiedCache.toBuilder().negativeTtl(Duration.ZERO).build());
+        new SecureRandom().nextBytes(cacheSecret);
+    }
+
+    /**
+     * Для неизвестного имени пароль все равно проверяется - по хэшу-пустышке с той же стоимостью, чтобы по времени
+     * ответа нельзя было узнать, существует ли пользователь
+     *
+     * @param candidates пользователи с этим именем в порядке добавления
+     */
+    public Optional<User> verify(List<User> candidates, String userName, String password) {
+        if (candidates.isEmpty()) {
+            hasher.verify(password, dummyHash());
+            return Optional.empty();
+        }
+        if (verified == null) {
+            return firstMatch(candidates, password);
+        }
+        return verified.get(cacheKey(userName, password), key -> firstMatch(candidates, password))
+                       .filter(candidates::contains);
+    }
+
+    public PasswordHash hash(String password) {
+        return hasher.hash(password);
+    }
+
+    public Optional<CacheStats> verifiedCacheStats() {
+        return Optional.ofNullable(verified).map(LruCache::stats);
+    }
+
+    /**
+     * Считается при первом входе с неизвестным именем, а не в конструкторе, чтобы создание сервиса не стоило KDF.
+     * Гонка безвредна: хэши-пустышки взаимозаменяемы
+     */
+    private PasswordHash dummyHash() {
+        PasswordHash hash = dummyHash;
+        if (hash == null) {
+            byte[] random = new byte[16];
+            new SecureRandom().nextBytes(random);
+            hash = hasher.hash(Base64.getEncoder().encodeToString(random));
+            dummyHash = hash;
+        }
+        return hash;
+    }
+
+    private Optional<User> firstMatch(List<User> candidates, String password) {
+        for (int i = 0; i < candidates.size(); i++) {
+            User user = candidates.get(i);
+            PasswordHash hash = user.getPasswordHash();
+            if (hash != null && hasher.verify(password, hash)) {
+                return Optional.of(user);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private String cacheKey(String userName, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(cacheSecret);
+            digest.update(userName.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(password.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
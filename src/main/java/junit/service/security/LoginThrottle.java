@@ -0,0 +1,199 @@
+package junit.service.security;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Ограничение попыток входа: корзина токенов на каждое имя и общая на все попытки. Корзина хранится как одно число -
+ * теоретическое время следующей попытки (GCRA), так что попытка стоит одного CAS без блокировок. Общая корзина
+ * разбита на полосы по потокам, чтобы не было одной горячей ячейки; когда своя полоса пуста, поток берет токен из
+ * соседних. Попытка либо получает оба токена, либо не расходует ни одного: если вторая корзина отказала, токен первой
+ * возвращается. Корзина для нового имени заводится только после токена из общей корзины и пока имен меньше
+ * maxTrackedUsers; сверх этого новые имена ограничивает только общая корзина, так что поток попыток с разными именами
+ * не раздувает память и не закрывает вход остальным. Корзины имен, простоявшие полными дольше idleTimeout, удаляются
+ * попутно: каждый вызов просматривает не больше SWEEP_BATCH корзин
+ */
+public class LoginThrottle {
+
+    static final int SWEEP_BATCH = 16;
+
+    private final Map<String, Bucket> users = new ConcurrentHashMap<>();
+    private final Bucket[] global;
+    private final long userInterval;
+    private final long userTolerance;
+    private final long globalInterval;
+    private final long globalTolerance;
+    private final long idleTimeoutNanos;
+    private final int maxTrackedUsers;
+    private final LongSupplier clock;
+    private final AtomicLong nextSweep;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    /**
+     * Текущий проход очистки; меняется только потоком, захватившим sweeping
+     */
+    private volatile Iterator<Map.Entry<String, Bucket>> sweep;
+
+    public LoginThrottle(ThrottleConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    public LoginThrottle(ThrottleConfig config, LongSupplier clock) {
+        if (config.getPerUserBurst() <= 0 || config.getGlobalBurst() <= 0
+                || config.getPerUserRate() <= 0 || config.getGlobalRate() <= 0) {
+            throw new IllegalArgumentException("Throttle bursts and rates must be positive");
+        }
+        if (config.getMaxTrackedUsers() <= 0) {
+            throw new IllegalArgumentException("Max tracked users must be positive");
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        this.global = new Bucket[Math.min(Integer.highestOneBit(processors * 2 - 1),
+                Integer.highestOneBit(config.getGlobalBurst()))];
+        this.userInterval = (long) (1e9 / config.getPerUserRate());
+        this.userTolerance = userInterval * (config.getPerUserBurst() - 1L);
+        this.globalInterval = (long) (1e9 * global.length / config.getGlobalRate());
+        this.globalTolerance = globalInterval * (config.getGlobalBurst() / global.length - 1L);
+        this.idleTimeoutNanos = config.getIdleTimeout().toNanos();
+        this.maxTrackedUsers = config.getMaxTrackedUsers();
+        this.clock = clock;
+        long now = clock.getAsLong();
+        for (int i = 0; i < global.length; i++) {
+            global[i] = new Bucket(now);
+        }
+        this.nextSweep = new AtomicLong(now + idleTimeoutNanos);
+    }
+
+    /**
+     * Забирает по токену из корзины имени и общей корзины. Уже известное имя проверяется первым, так что перебор
+     * пароля к одному имени не расходует общую корзину; для нового имени сначала берется токен из общей. Если
+     * отказала вторая корзина, токен первой возвращается
+     *
+     * @throws LoginThrottledException если в одной из корзин нет токенов
+     */
+    public void acquire(String userName) {
+        long now = clock.getAsLong();
+        sweepStep(now);
+        Bucket bucket = users.get(userName);
+        if (bucket != null) {
+            acquireUser(bucket, now);
+            try {
+                acquireGlobal(now);
+            } catch (LoginThrottledException e) {
+                bucket.refund(userInterval);
+                throw e;
+            }
+            return;
+        }
+        Bucket globalStripe = acquireGlobal(now);
+        if (users.size() >= maxTrackedUsers) {
+            return;
+        }
+        try {
+            acquireUser(users.computeIfAbsent(userName, key -> new Bucket(now)), now);
+        } catch (LoginThrottledException e) {
+            globalStripe.refund(globalInterval);
+            throw e;
+        }
+    }
+
+    /**
+     * Число отслеживаемых имен
+     */
+    public int trackedUsers() {
+        return users.size();
+    }
+
+    private void acquireUser(Bucket bucket, long now) {
+        long userWait = bucket.tryAcquire(now, userInterval, userTolerance);
+        if (userWait > 0) {
+            throw new LoginThrottledException("Too many login attempts for this user", Duration.ofNanos(userWait));
+        }
+    }
+
+    /**
+     * @return полоса общей корзины, из которой взят токен
+     */
+    private Bucket acquireGlobal(long now) {
+        int home = (int) Thread.currentThread().getId();
+        long globalWait = Long.MAX_VALUE;
+        for (int i = 0; i < global.length; i++) {
+            Bucket stripe = global[(home + i) & (global.length - 1)];
+            long wait = stripe.tryAcquire(now, globalInterval, globalTolerance);
+            if (wait == 0) {
+                return stripe;
+            }
+            globalWait = Math.min(globalWait, wait);
+        }
+        throw new LoginThrottledException("Too many login attempts", Duration.ofNanos(globalWait));
+    }
+
+    /**
+     * Шаг очистки: не больше SWEEP_BATCH корзин за вызов. Проход начинается раз в idleTimeout / 2 и продолжается
+     * следующими вызовами, пока не дойдет до конца. Итератор ConcurrentHashMap не мешает параллельным изменениям
+     */
+    private void sweepStep(long now) {
+        if ((sweep == null && now - nextSweep.get() < 0) || !sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (sweep == null) {
+                if (now - nextSweep.get() < 0) {
+                    return;
+                }
+                sweep = users.entrySet().iterator();
+            }
+            for (int i = 0; i < SWEEP_BATCH && sweep.hasNext(); i++) {
+                Map.Entry<String, Bucket> entry = sweep.next();
+                if (now - entry.getValue().theoreticalArrival.get() >= idleTimeoutNanos) {
+                    users.remove(entry.getKey(), entry.getValue());
+                }
+            }
+            if (!sweep.hasNext()) {
+                sweep = null;
+                nextSweep.set(now + idleTimeoutNanos / 2);
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private static final class Bucket {
+
+        /**
+         * Момент, к которому корзина снова будет полной
+         */
+        final AtomicLong theoreticalArrival;
+
+        Bucket(long now) {
+            this.theoreticalArrival = new AtomicLong(now);
+        }
+
+        /**
+         * @return 0, если токен взят, иначе сколько наносекунд ждать следующего
+         */
+        long tryAcquire(long now, long interval, long tolerance) {
+            while (true) {
+                long arrival = theoreticalArrival.get();
+                long next = Math.max(arrival, now) + interval;
+                long wait = next - now - tolerance - interval;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (theoreticalArrival.compareAndSet(arrival, next)) {
+                    return 0L;
+                }
+            }
+        }
+
+        /**
+         * Возвращает токен, взятый tryAcquire, если попытку отклонила другая корзина
+         */
+        void refund(long interval) {
+            theoreticalArrival.addAndGet(-interval);
+        }
+    }
+}
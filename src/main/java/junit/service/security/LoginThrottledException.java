@@ -0,0 +1,20 @@
+package junit.service.security;
+
+import java.time.Duration;
+
+/**
+ * Попытка входа отклонена ограничителем до проверки пароля
+ */
+public class LoginThrottledException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public LoginThrottledException(String message, Duration retryAfter) {
+        super(message, null, false, false);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
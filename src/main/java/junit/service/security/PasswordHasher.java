@@ -0,0 +1,56 @@
+package junit.service.security;
+
+import junit.dto.PasswordHash;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+/**
+ * PBKDF2-HMAC-SHA256 с солью на каждого пользователя. Стоимость задается числом итераций; проверка сравнивает хэши
+ * за постоянное время
+ */
+public class PasswordHasher {
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final int iterations;
+
+    public PasswordHasher(int iterations) {
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("Iterations must be positive");
+        }
+        this.iterations = iterations;
+    }
+
+    public PasswordHash hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        return new PasswordHash(salt, derive(password, salt, iterations), iterations);
+    }
+
+    public boolean verify(String password, PasswordHash passwordHash) {
+        byte[] candidate = derive(password, passwordHash.getSalt(), passwordHash.getIterations());
+        return MessageDigest.isEqual(candidate, passwordHash.getHash());
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot hash password with " + ALGORITHM, e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package junit.service.security;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+@Builder
+public class ThrottleConfig {
+
+    /**
+     * Сколько попыток входа под одним именем можно сделать подряд и с какой скоростью (в секунду) они восполняются
+     */
+    @Builder.Default
+    int perUserBurst = 10;
+    @Builder.Default
+    double perUserRate = 1.0;
+    /**
+     * То же для всех попыток вместе
+     */
+    @Builder.Default
+    int globalBurst = 2_000;
+    @Builder.Default
+    double globalRate = 1_000.0;
+    /**
+     * Через сколько после полного восполнения корзина имени удаляется, чтобы память не росла с числом имен
+     */
+    @Builder.Default
+    Duration idleTimeout = Duration.ofMinutes(1);
+    /**
+     * Сколько имен отслеживается одновременно; попытки входа под новыми именами сверх этого ограничивает только общая
+     * корзина
+     */
+    @Builder.Default
+    int maxTrackedUsers = 100_000;
+
+    public static ThrottleConfig defaults() {
+        return builder().build();
+    }
+}
@@ -0,0 +1,108 @@
+package junit.service.store;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Непрерывная область байтов для строк и массивов байтов колоночного хранилища: значение хранится как varint-длина
+ * и байты (строки - в UTF-8), адресуется смещением. Может лежать в куче или вне ее (direct buffer), при росте
+ * копируется в буфер вдвое больше
+ */
+final class ByteArena {
+
+    private final boolean offHeap;
+    private ByteBuffer buffer;
+
+    ByteArena(int initialCapacity, boolean offHeap) {
+        this.offHeap = offHeap;
+        this.buffer = allocate(Math.max(initialCapacity, 64));
+    }
+
+    int append(byte[] value) {
+        int offset = buffer.position();
+        ensureRemaining(5 + value.length);
+        int length = value.length;
+        while ((length & ~0x7F) != 0) {
+            buffer.put((byte) ((length & 0x7F) | 0x80));
+            length >>>= 7;
+        }
+        buffer.put((byte) length);
+        buffer.put(value);
+        return offset;
+    }
+
+    boolean matches(int offset, byte[] value) {
+        int position = dataOffset(offset);
+        int length = lengthAt(offset);
+        if (length != value.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(position + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    String read(int offset) {
+        int position = dataOffset(offset);
+        int length = lengthAt(offset);
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + position, length, StandardCharsets.UTF_8);
+        }
+        return new String(readBytes(offset), StandardCharsets.UTF_8);
+    }
+
+    byte[] readBytes(int offset) {
+        byte[] bytes = new byte[lengthAt(offset)];
+        buffer.get(dataOffset(offset), bytes);
+        return bytes;
+    }
+
+    private int lengthAt(int offset) {
+        int length = 0;
+        int position = offset;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get(position++);
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return length;
+            }
+        }
+    }
+
+    private int dataOffset(int offset) {
+        int position = offset;
+        while ((buffer.get(position++) & 0x80) != 0) {
+            // пропуск байтов длины
+        }
+        return position;
+    }
+
+    static int hash(byte[] value) {
+        int hash = 1;
+        for (byte b : value) {
+            hash = 31 * hash + b;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private void ensureRemaining(int needed) {
+        if (buffer.remaining() >= needed) {
+            return;
+        }
+        long required = (long) buffer.position() + needed;
+        if (required > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Columnar store is limited to 2 GB of user names and password hashes");
+        }
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(required, (long) buffer.capacity() * 2));
+        ByteBuffer grown = allocate(capacity);
+        grown.put(buffer.flip());
+        buffer = grown;
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return offHeap ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+}
@@ -0,0 +1,372 @@
+package junit.service.store;
+
+import junit.dto.PasswordHash;
+import junit.dto.User;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Компактное хранилище по колонкам: id и число итераций хэша лежат в int[], имена, соли и хэши паролей - в одной
+ * области байтов (ByteArena, в куче или вне ее), индексы по имени и по id - таблицы с открытой адресацией из номеров
+ * строк. Объекты User создаются только при выдаче наружу. Удаленные строки помечаются и вычищаются из индексов при их
+ * перестройке, а когда удаленных становится больше половины живых, хранилище уплотняется: живые строки переписываются
+ * в новые колонки и область байтов с сохранением порядка добавления. Как и ListUserStore, требует внешней
+ * синхронизации при доступе из нескольких потоков
+ */
+public class ColumnarUserStore implements UserStore {
+
+    private static final int EMPTY = 0;
+
+    private final boolean offHeap;
+    private ByteArena strings;
+    private int[] ids = new int[16];
+    private int[] userNameOffsets = new int[16];
+    private int[] saltOffsets = new int[16];
+    private int[] hashOffsets = new int[16];
+    private int[] iterations = new int[16];
+    private BitSet nullIds = new BitSet();
+    private BitSet deleted = new BitSet();
+    private int rows;
+    private int liveRows;
+    private int distinctIds;
+    private int[] nameTable = new int[32];
+    private int[] idTable = new int[32];
+    private final Map<Integer, User> byIdView = new ByIdView();
+
+    public ColumnarUserStore() {
+        this(false);
+    }
+
+    public ColumnarUserStore(boolean offHeap) {
+        this.offHeap = offHeap;
+        this.strings = new ByteArena(1024, offHeap);
+    }
+
+    @Override
+    public boolean add(User user) {
+        ensureRowCapacity(rows + 1);
+        int row = rows++;
+        byte[] userName = utf8(user.getUserName());
+        userNameOffsets[row] = strings.append(userName);
+        PasswordHash passwordHash = user.getPasswordHash();
+        saltOffsets[row] = strings.append(passwordHash.getSalt());
+        hashOffsets[row] = strings.append(passwordHash.getHash());
+        iterations[row] = passwordHash.getIterations();
+        if (user.getId() == null) {
+            nullIds.set(row);
+        } else {
+            ids[row] = user.getId();
+            if (findRowById(user.getId()) < 0) {
+                distinctIds++;
+            }
+        }
+        liveRows++;
+        if ((long) rows * 2 > nameTable.length) {
+            rebuildIndexes(nameTable.length * 2);
+        } else {
+            insert(nameTable, ByteArena.hash(userName), row);
+            if (user.getId() != null) {
+                insert(idTable, hashId(user.getId()), row);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void addAll(Collection<User> users) {
+        ensureRowCapacity(rows + users.size());
+        for (User user : users) {
+            add(user);
+        }
+    }
+
+    @Override
+    public List<User> remove(Integer id) {
+        if (id == null) {
+            return Collections.emptyList();
+        }
+        List<User> removed = new ArrayList<>(1);
+        int mask = idTable.length - 1;
+        for (int slot = hashId(id) & mask; idTable[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int row = idTable[slot] - 1;
+            if (!deleted.get(row) && ids[row] == id) {
+                removed.add(userAt(row));
+                deleted.set(row);
+                liveRows--;
+            }
+        }
+        if (!removed.isEmpty()) {
+            distinctIds--;
+            if (rows - liveRows > liveRows / 2) {
+                compact();
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public List<User> findByUserName(String userName) {
+        byte[] key = utf8(userName);
+        List<User> result = null;
+        int mask = nameTable.length - 1;
+        for (int slot = ByteArena.hash(key) & mask; nameTable[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int row = nameTable[slot] - 1;
+            if (!deleted.get(row) && strings.matches(userNameOffsets[row], key)) {
+                if (result == null) {
+                    result = new ArrayList<>(1);
+                }
+                result.add(userAt(row));
+            }
+        }
+        return result == null ? Collections.emptyList() : result;
+    }
+
+    @Override
+    public Optional<User> findById(Integer id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        int row = findRowById(id);
+        return row < 0 ? Optional.empty() : Optional.of(userAt(row));
+    }
+
+    @Override
+    public Map<Integer, User> byId() {
+        return byIdView;
+    }
+
+    /**
+     * Список читает колонки, действовавшие на момент вызова: уплотнение заменяет их новыми, а старые не меняет,
+     * поэтому ранее выданный список остается верным
+     */
+    @Override
+    public List<User> getAll() {
+        RowReader reader = reader();
+        int[] live = new int[liveRows];
+        int count = 0;
+        for (int row = deleted.nextClearBit(0); row < rows; row = deleted.nextClearBit(row + 1)) {
+            live[count++] = row;
+        }
+        return new AbstractList<>() {
+            @Override
+            public User get(int index) {
+                return reader.userAt(live[index]);
+            }
+
+            @Override
+            public int size() {
+                return live.length;
+            }
+        };
+    }
+
+    /**
+     * Строки хранятся в порядке добавления, поэтому первая найденная строка с наименьшим номером - первый добавленный
+     */
+    private int findRowById(int id) {
+        int found = -1;
+        int mask = idTable.length - 1;
+        for (int slot = hashId(id) & mask; idTable[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int row = idTable[slot] - 1;
+            if (!deleted.get(row) && ids[row] == id && (found < 0 || row < found)) {
+                found = row;
+            }
+        }
+        return found;
+    }
+
+    private User userAt(int row) {
+        return reader().userAt(row);
+    }
+
+    private RowReader reader() {
+        return new RowReader(strings, ids, userNameOffsets, saltOffsets, hashOffsets, iterations, nullIds);
+    }
+
+    private void ensureRowCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int grown = Math.max(capacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, grown);
+        userNameOffsets = Arrays.copyOf(userNameOffsets, grown);
+        saltOffsets = Arrays.copyOf(saltOffsets, grown);
+        hashOffsets = Arrays.copyOf(hashOffsets, grown);
+        iterations = Arrays.copyOf(iterations, grown);
+    }
+
+    /**
+     * Переписывает живые строки подряд, в прежнем порядке: удаленные перестают занимать место в колонках, в области
+     * байтов и в индексах. Стоит O(живых строк) и запускается не чаще чем раз на liveRows / 2 удалений
+     */
+    private void compact() {
+        int capacity = Math.max(16, liveRows);
+        ByteArena compactStrings = new ByteArena(1024, offHeap);
+        int[] compactIds = new int[capacity];
+        int[] compactUserNameOffsets = new int[capacity];
+        int[] compactSaltOffsets = new int[capacity];
+        int[] compactHashOffsets = new int[capacity];
+        int[] compactIterations = new int[capacity];
+        BitSet compactNullIds = new BitSet();
+        int compactRows = 0;
+        for (int row = deleted.nextClearBit(0); row < rows; row = deleted.nextClearBit(row + 1)) {
+            compactIds[compactRows] = ids[row];
+            compactUserNameOffsets[compactRows] = compactStrings.append(strings.readBytes(userNameOffsets[row]));
+            compactSaltOffsets[compactRows] = compactStrings.append(strings.readBytes(saltOffsets[row]));
+            compactHashOffsets[compactRows] = compactStrings.append(strings.readBytes(hashOffsets[row]));
+            compactIterations[compactRows] = iterations[row];
+            if (nullIds.get(row)) {
+                compactNullIds.set(compactRows);
+            }
+            compactRows++;
+        }
+        strings = compactStrings;
+        ids = compactIds;
+        userNameOffsets = compactUserNameOffsets;
+        saltOffsets = compactSaltOffsets;
+        hashOffsets = compactHashOffsets;
+        iterations = compactIterations;
+        nullIds = compactNullIds;
+        deleted = new BitSet();
+        rows = compactRows;
+        rebuildIndexes(Math.max(32, Integer.highestOneBit(Math.max(1, rows * 2 - 1)) << 1));
+    }
+
+    private void rebuildIndexes(int capacity) {
+        nameTable = new int[capacity];
+        idTable = new int[capacity];
+        for (int row = deleted.nextClearBit(0); row < rows; row = deleted.nextClearBit(row + 1)) {
+            insert(nameTable, ByteArena.hash(utf8(strings.read(userNameOffsets[row]))), row);
+            if (!nullIds.get(row)) {
+                insert(idTable, hashId(ids[row]), row);
+            }
+        }
+    }
+
+    private static void insert(int[] table, int hash, int row) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = row + 1;
+    }
+
+    private static int hashId(int id) {
+        int hash = id * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Строки по номеру из конкретного набора колонок. add дописывает только новые строки, а уплотнение и рост
+     * заменяют массивы, поэтому уже выданные строки через сохраненный RowReader читаются без изменений
+     */
+    private static final class RowReader {
+
+        private final ByteArena strings;
+        private final int[] ids;
+        private final int[] userNameOffsets;
+        private final int[] saltOffsets;
+        private final int[] hashOffsets;
+        private final int[] iterations;
+        private final BitSet nullIds;
+
+        private RowReader(ByteArena strings, int[] ids, int[] userNameOffsets, int[] saltOffsets, int[] hashOffsets,
+                          int[] iterations, BitSet nullIds) {
+            this.strings = strings;
+            this.ids = ids;
+            this.userNameOffsets = userNameOffsets;
+            this.saltOffsets = saltOffsets;
+            this.hashOffsets = hashOffsets;
+            this.iterations = iterations;
+            this.nullIds = nullIds;
+        }
+
+        private User userAt(int row) {
+            return User.of(
+                    nullIds.get(row) ? null : ids[row],
+                    strings.read(userNameOffsets[row]),
+                    new PasswordHash(strings.readBytes(saltOffsets[row]), strings.readBytes(hashOffsets[row]),
+                            iterations[row])
+            );
+        }
+    }
+
+    private final class ByIdView extends AbstractMap<Integer, User> {
+
+        @Override
+        public User get(Object key) {
+            return key instanceof Integer ? findById((Integer) key).orElse(null) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer && findRowById((Integer) key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return distinctIds;
+        }
+
+        @Override
+        public Set<Entry<Integer, User>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Integer, User>> iterator() {
+                    return new Iterator<>() {
+                        private int next = advance(0);
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < rows;
+                        }
+
+                        @Override
+                        public Entry<Integer, User> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int row = next;
+                            next = advance(row + 1);
+                            User user = userAt(row);
+                            return new SimpleImmutableEntry<>(user.getId(), user);
+                        }
+
+                        private int advance(int from) {
+                            for (int row = deleted.nextClearBit(from); row < rows; row = deleted.nextClearBit(row + 1)) {
+                                if (!nullIds.get(row) && findRowById(ids[row]) == row) {
+                                    return row;
+                                }
+                            }
+                            return rows;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return distinctIds;
+                }
+            };
+        }
+    }
+}
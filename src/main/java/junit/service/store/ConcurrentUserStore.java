@@ -0,0 +1,214 @@
+package junit.service.store;
+
+import junit.dto.User;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Потокобезопасное хранилище. Чтение никогда не блокируется: индексы - ConcurrentHashMap с неизменяемыми
+ * списками (запись блокирует только свою корзину), все пользователи лежат в skip list по порядковому номеру добавления.
+ * getAll видит целый префикс добавлений без "дыр": до отметки published, которая сдвигается только по непрерывному
+ * ряду завершенных записей. Писатели друг друга не ждут: завершенный диапазон номеров откладывается в completed, и
+ * отметку сдвигает тот, кто закрыл разрыв, заодно и через диапазоны, завершенные раньше.
+ * Индекс по id - одна запись на id (первый пользователь и номера всех его добавлений), поэтому remove снимает ее
+ * одним атомарным удалением и не может разойтись с параллельным add того же id
+ */
+public class ConcurrentUserStore implements UserStore {
+
+    private final ConcurrentNavigableMap<Long, User> usersBySequence = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, List<User>> usersByName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, IdEntry> entriesById = new ConcurrentHashMap<>();
+    private final Map<Integer, User> byIdView = new ByIdView();
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final AtomicLong published = new AtomicLong(-1L);
+    /**
+     * Завершенные, но еще не опубликованные диапазоны: первый номер -> последний
+     */
+    private final ConcurrentMap<Long, Long> completed = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean add(User user) {
+        long sequence = nextSequence.getAndIncrement();
+        try {
+            index(sequence, user);
+        } finally {
+            publish(sequence, sequence);
+        }
+        return true;
+    }
+
+    /**
+     * Пачка получает непрерывный диапазон номеров и публикуется целиком
+     */
+    @Override
+    public void addAll(Collection<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        long first = nextSequence.getAndAdd(users.size());
+        long sequence = first;
+        try {
+            for (User user : users) {
+                index(sequence++, user);
+            }
+        } finally {
+            publish(first, first + users.size() - 1);
+        }
+    }
+
+    @Override
+    public List<User> remove(Integer id) {
+        IdEntry entry = id == null ? null : entriesById.remove(id);
+        if (entry == null) {
+            return Collections.emptyList();
+        }
+        List<User> removed = new ArrayList<>(entry.sequences.size());
+        for (Long sequence : entry.sequences) {
+            User user = usersBySequence.remove(sequence);
+            if (user != null) {
+                usersByName.computeIfPresent(user.getUserName(), (userName, users) -> without(users, user));
+                removed.add(user);
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public List<User> findByUserName(String userName) {
+        return usersByName.getOrDefault(userName, Collections.emptyList());
+    }
+
+    @Override
+    public Optional<User> findById(Integer id) {
+        IdEntry entry = id == null ? null : entriesById.get(id);
+        return entry == null ? Optional.empty() : Optional.of(entry.first);
+    }
+
+    @Override
+    public Map<Integer, User> byId() {
+        return byIdView;
+    }
+
+    @Override
+    public List<User> getAll() {
+        return List.copyOf(usersBySequence.headMap(published.get(), true).values());
+    }
+
+    private void index(long sequence, User user) {
+        usersBySequence.put(sequence, user);
+        usersByName.merge(user.getUserName(), List.of(user), ConcurrentUserStore::append);
+        if (user.getId() != null) {
+            entriesById.compute(user.getId(), (id, entry) -> entry == null
+                    ? new IdEntry(user, List.of(sequence))
+                    : new IdEntry(entry.first, append(entry.sequences, List.of(sequence))));
+        }
+    }
+
+    /**
+     * Порядок важен: диапазон кладется в completed до попытки сдвинуть отметку. Если писатель, закрывающий разрыв перед
+     * нами, уже прошел свою проверку и нас не увидел, то его сдвиг отметки случился раньше нашей проверки, и мы
+     * продолжим с нее сами
+     */
+    private void publish(long first, long last) {
+        completed.put(first, last);
+        while (true) {
+            long watermark = published.get();
+            Long end = completed.get(watermark + 1);
+            if (end == null) {
+                return;
+            }
+            if (published.compareAndSet(watermark, end)) {
+                completed.remove(watermark + 1);
+            }
+        }
+    }
+
+    private static <T> List<T> append(List<T> values, List<T> added) {
+        List<T> result = new ArrayList<>(values.size() + added.size());
+        result.addAll(values);
+        result.addAll(added);
+        return Collections.unmodifiableList(result);
+    }
+
+    private static List<User> without(List<User> users, User removed) {
+        List<User> result = new ArrayList<>(users);
+        result.remove(removed);
+        return result.isEmpty() ? null : Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Неизменяемая запись индекса: пользователь, добавленный с этим id первым, и номера всех добавлений с ним
+     */
+    private static final class IdEntry {
+
+        private final User first;
+        private final List<Long> sequences;
+
+        private IdEntry(User first, List<Long> sequences) {
+            this.first = first;
+            this.sequences = sequences;
+        }
+    }
+
+    /**
+     * Только для чтения: id -> первый пользователь с ним, поверх entriesById без копирования
+     */
+    private final class ByIdView extends AbstractMap<Integer, User> {
+
+        @Override
+        public User get(Object key) {
+            return key instanceof Integer ? findById((Integer) key).orElse(null) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return entriesById.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return entriesById.size();
+        }
+
+        @Override
+        public Set<Entry<Integer, User>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Integer, User>> iterator() {
+                    Iterator<Entry<Integer, IdEntry>> entries = entriesById.entrySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return entries.hasNext();
+                        }
+
+                        @Override
+                        public Entry<Integer, User> next() {
+                            Entry<Integer, IdEntry> entry = entries.next();
+                            return new SimpleImmutableEntry<>(entry.getKey(), entry.getValue().first);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return entriesById.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package junit.service.store;
+
+import junit.dto.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Однопоточное хранилище: список плюс индексы по имени и id. При доступе из нескольких потоков нужна внешняя
+ * синхронизация
+ */
+public class ListUserStore implements UserStore {
+
+    private final ArrayList<User> users = new ArrayList<>();
+    private final Map<String, List<User>> usersByName = new HashMap<>();
+    private final Map<Integer, User> usersById = new HashMap<>();
+    private final List<User> usersView = Collections.unmodifiableList(users);
+    private final Map<Integer, User> usersByIdView = Collections.unmodifiableMap(usersById);
+
+    @Override
+    public boolean add(User user) {
+        usersByName.computeIfAbsent(user.getUserName(), userName -> new ArrayList<>(1)).add(user);
+        if (user.getId() != null) {
+            usersById.putIfAbsent(user.getId(), user);
+        }
+        return users.add(user);
+    }
+
+    @Override
+    public void addAll(Collection<User> added) {
+        users.ensureCapacity(users.size() + added.size());
+        for (User user : added) {
+            add(user);
+        }
+    }
+
+    @Override
+    public List<User> remove(Integer id) {
+        if (id == null || usersById.remove(id) == null) {
+            return Collections.emptyList();
+        }
+        List<User> removed = new ArrayList<>(1);
+        users.removeIf(user -> {
+            if (Objects.equals(user.getId(), id)) {
+                removed.add(user);
+                return true;
+            }
+            return false;
+        });
+        for (User user : removed) {
+            List<User> sameName = usersByName.get(user.getUserName());
+            sameName.remove(user);
+            if (sameName.isEmpty()) {
+                usersByName.remove(user.getUserName());
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public List<User> findByUserName(String userName) {
+        return usersByName.getOrDefault(userName, Collections.emptyList());
+    }
+
+    @Override
+    public Optional<User> findById(Integer id) {
+        return Optional.ofNullable(usersById.get(id));
+    }
+
+    @Override
+    public Map<Integer, User> byId() {
+        return usersByIdView;
+    }
+
+    @Override
+    public List<User> getAll() {
+        return usersView;
+    }
+}
@@ -0,0 +1,21 @@
+package junit.service.store;
+
+import java.util.function.Supplier;
+
+public enum StorageMode {
+
+    LIST(ListUserStore::new),
+    CONCURRENT(ConcurrentUserStore::new),
+    COLUMNAR(() -> new ColumnarUserStore(false)),
+    COLUMNAR_OFF_HEAP(() -> new ColumnarUserStore(true));
+
+    private final Supplier<UserStore> factory;
+
+    StorageMode(Supplier<UserStore> factory) {
+        this.factory = factory;
+    }
+
+    public UserStore createStore() {
+        return factory.get();
+    }
+}
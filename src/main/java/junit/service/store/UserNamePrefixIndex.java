@@ -0,0 +1,44 @@
+package junit.service.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Отсортированный индекс имен пользователей для поиска по префиксу: имя хранится один раз вместе с числом
+ * пользователей с этим именем, сами пользователи достаются из хранилища по точному имени. Поиск - O(log n + k),
+ * потокобезопасен. Пользователи без имени (null) в индекс не попадают: по префиксу их не найти, но хранилище
+ * принимает их, как и раньше
+ */
+public class UserNamePrefixIndex {
+
+    private final ConcurrentNavigableMap<String, Integer> userNames = new ConcurrentSkipListMap<>();
+
+    public void add(String userName) {
+        if (userName != null) {
+            userNames.merge(userName, 1, Integer::sum);
+        }
+    }
+
+    public void remove(String userName) {
+        if (userName != null) {
+            userNames.computeIfPresent(userName, (key, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    /**
+     * До limit имен с этим префиксом в лексикографическом порядке
+     */
+    public List<String> find(String prefix, int limit) {
+        List<String> result = new ArrayList<>(Math.min(limit, 16));
+        for (Map.Entry<String, Integer> entry : userNames.tailMap(prefix, true).entrySet()) {
+            if (result.size() >= limit || !entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            result.add(entry.getKey());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,44 @@
+package junit.service.store;
+
+import junit.dto.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Хранилище пользователей для UserService. Реализация отвечает за индексы и за потокобезопасность
+ */
+public interface UserStore {
+
+    boolean add(User user);
+
+    default void addAll(Collection<User> users) {
+        for (User user : users) {
+            add(user);
+        }
+    }
+
+    /**
+     * Удаляет всех пользователей с этим id и возвращает их
+     */
+    List<User> remove(Integer id);
+
+    /**
+     * Пользователи с таким именем в порядке добавления или пустой список
+     */
+    List<User> findByUserName(String userName);
+
+    /**
+     * Первый добавленный пользователь с этим id. Пользователи с id == null в индекс по id не попадают
+     */
+    Optional<User> findById(Integer id);
+
+    /**
+     * Неизменяемое представление индекса по id, которое отражает последующие add и remove
+     */
+    Map<Integer, User> byId();
+
+    List<User> getAll();
+}
@@ -1,38 +1,23 @@
-import org.junit.platform.engine.discovery.DiscoverySelectors;
-import org.junit.platform.launcher.Launcher;
-import org.junit.platform.launcher.LauncherDiscoveryRequest;
-import org.junit.platform.launcher.TagFilter;
-import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
-import org.junit.platform.launcher.core.LauncherFactory;
-import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
-
-import java.io.PrintWriter;
+import junit.launcher.LauncherOptions;
+import junit.launcher.ShardedTestLauncher;
 
 /**
- * Создаем лаунчер, который позволяет нам запускать тестовые классы, пакеты и так далее одной кнопкой
+ * Создаем лаунчер, который позволяет нам запускать тестовые классы, пакеты и так далее одной кнопкой.
+ * Пример: --select-package=junit.service --include-tag=Login --shard=2/4 (описание аргументов - в LauncherOptions),
+ * после всех шардов: --merge-history
  */
 
 public class TestLauncher {
 
     public static void main(String[] args) {
-        Launcher launcher = LauncherFactory.create();
-
-        SummaryGeneratingListener summaryGeneratingListener = new SummaryGeneratingListener();
-
-        LauncherDiscoveryRequest request = LauncherDiscoveryRequestBuilder
-                .request()
-//                .selectors(DiscoverySelectors.selectClass(UserServiceTest.class))
-                .selectors(DiscoverySelectors.selectPackage("junit.service"))
-                .filters(
-                        TagFilter.includeTags("Login")
-                )
-                .build();
-
-        launcher.execute(request, summaryGeneratingListener);
-
-        try (PrintWriter writer = new PrintWriter(System.out)) {
-            summaryGeneratingListener.getSummary().printTo(writer);
+        LauncherOptions options = LauncherOptions.parse(args);
+        if (options.isMergeHistory()) {
+            System.out.println("Merged history of " + ShardedTestLauncher.mergeHistory(options.getHistory()) + " shards");
+            return;
+        }
+        long failures = new ShardedTestLauncher(System.out).run(options);
+        if (failures > 0) {
+            System.exit(1);
         }
-
     }
 }
@@ -15,4 +15,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 })
 public abstract class TestBase {
 
+    /**
+     * Ресурс для @ResourceLock: тесты, чувствительные ко времени, берут его на чтение, а стресс-тесты, которые
+     * нагружают все ядра, - на запись, чтобы не выполняться одновременно с ними
+     */
+    public static final String CPU = "cpu";
 }
@@ -0,0 +1,20 @@
+package junit;
+
+import junit.dto.User;
+import junit.service.security.PasswordHasher;
+
+/**
+ * Пользователи для тестов. Хэш пароля считается с одной итерацией: проверка в login берет число итераций из самого
+ * хэша, так что тесты не платят за настоящую стоимость PBKDF2
+ */
+public final class TestUsers {
+
+    private static final PasswordHasher HASHER = new PasswordHasher(1);
+
+    private TestUsers() {
+    }
+
+    public static User user(Integer id, String userName, String password) {
+        return User.of(id, userName, HASHER.hash(password));
+    }
+}
@@ -0,0 +1,122 @@
+package junit.dao;
+
+import junit.TestBase;
+import junit.cache.CacheConfig;
+import junit.cache.CacheStats;
+import junit.cache.LruCache;
+import junit.dto.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static junit.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+class CachingUserDaoTest extends TestBase {
+
+    private static final User IVAN = user(1, "Ivan", "123");
+    private static final User PETR = user(2, "Petr", "111");
+
+    @Mock
+    private UserDao userDao;
+    private final AtomicLong clock = new AtomicLong();
+    private CachingUserDao cachingUserDao;
+
+    @BeforeEach
+    void prepare() {
+        LruCache<Integer, User> cache = new LruCache<>(CacheConfig.builder()
+                .maxSize(2)
+                .segments(1)
+                .ttl(Duration.ofSeconds(10))
+                .negativeTtl(Duration.ofSeconds(1))
+                .build(), clock::get);
+        cachingUserDao = new CachingUserDao(userDao, cache);
+        Mockito.lenient().doReturn(Optional.of(IVAN)).when(userDao).findById(IVAN.getId());
+        Mockito.lenient().doReturn(Optional.of(PETR)).when(userDao).findById(PETR.getId());
+        Mockito.lenient().doReturn(Optional.empty()).when(userDao).findById(3);
+    }
+
+    @Test
+    void repeatedLookupIsServedFromCache() {
+        cachingUserDao.findById(IVAN.getId());
+        Optional<User> maybeUser = cachingUserDao.findById(IVAN.getId());
+
+        assertThat(maybeUser).contains(IVAN);
+        Mockito.verify(userDao, Mockito.times(1)).findById(IVAN.getId());
+        CacheStats stats = cachingUserDao.cacheStats();
+        assertAll(
+                () -> assertThat(stats.getHits()).isEqualTo(1),
+                () -> assertThat(stats.getMisses()).isEqualTo(1)
+        );
+    }
+
+    @Test
+    void missingUserIsCachedUntilNegativeTtl() {
+        cachingUserDao.findById(3);
+        cachingUserDao.findById(3);
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+        cachingUserDao.findById(3);
+
+        Mockito.verify(userDao, Mockito.times(2)).findById(3);
+        assertThat(cachingUserDao.cacheStats().getExpirations()).isEqualTo(1);
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        cachingUserDao.findById(IVAN.getId());
+        cachingUserDao.findById(PETR.getId());
+        cachingUserDao.findById(IVAN.getId());
+        cachingUserDao.findById(3);
+        cachingUserDao.findById(IVAN.getId());
+        cachingUserDao.findById(PETR.getId());
+
+        Mockito.verify(userDao, Mockito.times(1)).findById(IVAN.getId());
+        Mockito.verify(userDao, Mockito.times(2)).findById(PETR.getId());
+        assertThat(cachingUserDao.cacheStats().getEvictions()).isEqualTo(2);
+    }
+
+    @Test
+    void deleteInvalidatesCachedUser() {
+        Mockito.doReturn(true).when(userDao).delete(IVAN.getId());
+        Mockito.doReturn(Map.of(PETR.getId(), true)).when(userDao).deleteAll(List.of(PETR.getId()));
+        cachingUserDao.findById(IVAN.getId());
+        cachingUserDao.findById(PETR.getId());
+
+        cachingUserDao.delete(IVAN.getId());
+        cachingUserDao.deleteAll(List.of(PETR.getId()));
+
+        assertThat(cachingUserDao.cacheStats().getSize()).isZero();
+    }
+
+    @Test
+    void deleteDuringLoadIsNotOverwrittenByStaleValue() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch deleted = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            loading.countDown();
+            deleted.await();
+            return Optional.of(IVAN);
+        }).doReturn(Optional.empty()).when(userDao).findById(IVAN.getId());
+        Mockito.doReturn(true).when(userDao).delete(IVAN.getId());
+
+        CompletableFuture<Optional<User>> staleRead = CompletableFuture.supplyAsync(() -> cachingUserDao.findById(IVAN.getId()));
+        loading.await();
+        cachingUserDao.delete(IVAN.getId());
+        deleted.countDown();
+
+        assertThat(staleRead.get(5, TimeUnit.SECONDS)).contains(IVAN);
+        assertThat(cachingUserDao.findById(IVAN.getId())).isEmpty();
+        Mockito.verify(userDao, Mockito.times(2)).findById(IVAN.getId());
+    }
+}
@@ -3,7 +3,9 @@ package junit.dao;
 import org.mockito.stubbing.Answer;
 import org.mockito.stubbing.Answer1;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class UserDaoMock extends UserDao{
@@ -15,4 +17,13 @@ public class UserDaoMock extends UserDao{
     public boolean delete(Integer userId) {
         return answers.getOrDefault(userId,false);
     }
+
+    @Override
+    public Map<Integer, Boolean> deleteAll(Collection<Integer> userIds) {
+        Map<Integer, Boolean> results = new LinkedHashMap<>();
+        for (Integer userId : userIds) {
+            results.put(userId, delete(userId));
+        }
+        return results;
+    }
 }
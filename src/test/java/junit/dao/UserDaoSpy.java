@@ -2,7 +2,11 @@ package junit.dao;
 
 import org.mockito.stubbing.Answer1;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class UserDaoSpy extends UserDao{
@@ -20,4 +24,20 @@ public class UserDaoSpy extends UserDao{
     public boolean delete(Integer userId) {
         return answers.getOrDefault(userId,userDao.delete(userId));
     }
+
+    @Override
+    public Map<Integer, Boolean> deleteAll(Collection<Integer> userIds) {
+        List<Integer> notAnswered = new ArrayList<>();
+        for (Integer userId : userIds) {
+            if (!answers.containsKey(userId)) {
+                notAnswered.add(userId);
+            }
+        }
+        Map<Integer, Boolean> delegated = userDao.deleteAll(notAnswered);
+        Map<Integer, Boolean> results = new LinkedHashMap<>();
+        for (Integer userId : userIds) {
+            results.put(userId, answers.getOrDefault(userId, delegated.get(userId)));
+        }
+        return results;
+    }
 }
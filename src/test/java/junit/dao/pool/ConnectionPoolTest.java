@@ -0,0 +1,231 @@
+package junit.dao.pool;
+
+import junit.TestBase;
+import junit.dao.UserDao;
+import junit.dto.User;
+import junit.metrics.MetricsRegistry;
+import junit.metrics.OperationSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLock;
+import org.mockito.Mockito;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static junit.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Пул проверяется на H2 в памяти: у каждого теста своя база, поэтому тесты независимы
+ */
+class ConnectionPoolTest {
+
+    private static final User IVAN = user(1, "Ivan", "123");
+    private static final User PETR = user(2, "Petr", "111");
+
+    private ConnectionFactory connectionFactory;
+    private ConnectionPool connectionPool;
+
+    @BeforeEach
+    void prepare() throws SQLException {
+        String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        connectionFactory = ConnectionFactory.driverManager(url, "sa", "");
+        try (Connection connection = connectionFactory.create();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE users (id INT PRIMARY KEY, username VARCHAR(64), password VARCHAR(128))");
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO users VALUES (?, ?, ?)")) {
+                for (User user : List.of(IVAN, PETR)) {
+                    insert.setInt(1, user.getId());
+                    insert.setString(2, user.getUserName());
+                    insert.setString(3, user.getPasswordHash().encode());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    @AfterEach
+    void closePool() {
+        if (connectionPool != null) {
+            connectionPool.close();
+        }
+    }
+
+    @Test
+    void connectionIsReusedAfterClose() throws SQLException {
+        connectionPool = new ConnectionPool(connectionFactory, PoolConfig.defaults());
+
+        connectionPool.getConnection().close();
+        connectionPool.getConnection().close();
+
+        PoolMetrics metrics = connectionPool.metrics();
+        assertAll(
+                () -> assertThat(metrics.getCreated()).isEqualTo(1),
+                () -> assertThat(metrics.getAcquired()).isEqualTo(2),
+                () -> assertThat(metrics.getActive()).isZero(),
+                () -> assertThat(metrics.getIdle()).isEqualTo(1)
+        );
+    }
+
+    @Test
+    @ResourceLock(value = TestBase.CPU, mode = ResourceAccessMode.READ)
+    void throwTimeoutIfPoolIsExhausted() throws SQLException {
+        connectionPool = new ConnectionPool(connectionFactory, PoolConfig.builder()
+                .maxSize(1)
+                .acquireTimeout(Duration.ofMillis(50))
+                .build());
+
+        try (Connection ignored = connectionPool.getConnection()) {
+            assertThrows(SQLTimeoutException.class, () -> connectionPool.getConnection());
+            assertThat(connectionPool.metrics().getActive()).isEqualTo(1);
+            assertThat(connectionPool.metrics().getMaxWait()).isGreaterThanOrEqualTo(Duration.ofMillis(50));
+        }
+        assertThat(connectionPool.metrics().getActive()).isZero();
+    }
+
+    @Test
+    @ResourceLock(value = TestBase.CPU, mode = ResourceAccessMode.READ)
+    void idleConnectionIsEvictedAfterTimeout() throws Exception {
+        connectionPool = new ConnectionPool(connectionFactory, PoolConfig.builder()
+                .idleTimeout(Duration.ofMillis(10))
+                .build());
+
+        connectionPool.getConnection().close();
+        Thread.sleep(30L);
+        connectionPool.evictIdle();
+
+        assertThat(connectionPool.metrics().getIdle()).isZero();
+        connectionPool.getConnection().close();
+        assertThat(connectionPool.metrics().getCreated()).isEqualTo(2);
+    }
+
+    @Test
+    void brokenIdleConnectionIsReplacedOnBorrow() throws SQLException {
+        connectionPool = new ConnectionPool(connectionFactory, PoolConfig.defaults());
+        Connection connection = connectionPool.getConnection();
+        Connection physical = connection.unwrap(Connection.class);
+        connection.close();
+        physical.close();
+
+        try (Connection replacement = connectionPool.getConnection()) {
+            assertThat(replacement.isValid(1)).isTrue();
+        }
+        assertThat(connectionPool.metrics().getCreated()).isEqualTo(2);
+    }
+
+    @Test
+    void closedPooledConnectionRejectsCalls() throws SQLException {
+        connectionPool = new ConnectionPool(connectionFactory, PoolConfig.defaults());
+        Connection connection = connectionPool.getConnection();
+        connection.close();
+
+        assertThat(connection.isClosed()).isTrue();
+        assertThrows(SQLException.class, connection::createStatement);
+    }
+
+    @Test
+    void userDaoDeletesThroughPool() {
+        connectionPool = new ConnectionPool(connectionFactory, PoolConfig.builder().maxSize(2).build());
+        UserDao userDao = new UserDao(connectionPool);
+
+        assertThat(userDao.delete(1)).isTrue();
+        assertThat(userDao.delete(1)).isFalse();
+        assertThat(connectionPool.metrics().getCreated()).isEqualTo(1);
+    }
+
+    @Test
+    void userDaoRecordsDeleteMetrics() {
+        connectionPool = new ConnectionPool(connectionFactory, PoolConfig.defaults());
+        MetricsRegistry metrics = MetricsRegistry.create();
+        UserDao userDao = new UserDao(connectionPool, metrics);
+
+        userDao.delete(1);
+        userDao.delete(1);
+
+        OperationSnapshot delete = metrics.snapshot().get(0);
+        assertAll(
+                () -> assertThat(delete.getName()).isEqualTo("userDao.delete"),
+                () -> assertThat(delete.getSuccesses()).isEqualTo(2),
+                () -> assertThat(delete.getMaxNanos()).isPositive()
+        );
+    }
+
+    @Test
+    void userDaoFindsUserById() {
+        connectionPool = new ConnectionPool(connectionFactory, PoolConfig.defaults());
+        UserDao userDao = new UserDao(connectionPool);
+
+        assertThat(userDao.findById(1)).contains(IVAN);
+        assertThat(userDao.findById(3)).isEmpty();
+    }
+
+    @Test
+    void userDaoDeletesAllInBatches() {
+        connectionPool = new ConnectionPool(connectionFactory, PoolConfig.builder().maxSize(1).build());
+        UserDao userDao = new UserDao(connectionPool);
+
+        Map<Integer, Boolean> results = userDao.deleteAll(List.of(2, 3, 1, 2));
+
+        assertThat(results).containsExactly(entry(2, true), entry(3, false), entry(1, true));
+        assertThat(connectionPool.metrics().getAcquired()).isEqualTo(1);
+    }
+
+    /**
+     * Удаление Ivan нарушает внешний ключ: драйвер бросает BatchUpdateException, а удаления до и после него проходят
+     */
+    @Test
+    void userDaoDeleteAllReportsFailedDeletesPerId() throws SQLException {
+        try (Connection connection = connectionFactory.create();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE sessions (user_id INT REFERENCES users (id))");
+            statement.execute("INSERT INTO sessions VALUES (1)");
+        }
+        connectionPool = new ConnectionPool(connectionFactory, PoolConfig.builder().maxSize(1).build());
+        UserDao userDao = new UserDao(connectionPool);
+
+        Map<Integer, Boolean> results = userDao.deleteAll(List.of(3, 1, 2));
+
+        assertAll(
+                () -> assertThat(results).containsExactly(entry(3, false), entry(1, false), entry(2, true)),
+                () -> assertThat(userDao.findById(1)).contains(IVAN),
+                () -> assertThat(userDao.findById(2)).isEmpty()
+        );
+    }
+
+    /**
+     * Драйвер, который останавливает пачку на первой ошибке: упавший id неудален, остаток пачки отправляется заново
+     */
+    @Test
+    void userDaoDeleteAllResendsRestOfBatchAfterDriverStops() throws SQLException {
+        Connection connection = Mockito.mock(Connection.class);
+        PreparedStatement statement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(connection.isValid(Mockito.anyInt())).thenReturn(true);
+        Mockito.when(connection.prepareStatement(Mockito.anyString())).thenReturn(statement);
+        Mockito.when(statement.executeBatch()).thenThrow(new BatchUpdateException(new int[]{1}))
+               .thenReturn(new int[]{0});
+        connectionPool = new ConnectionPool(() -> connection, PoolConfig.builder().maxSize(1).build());
+
+        Map<Integer, Boolean> results = new UserDao(connectionPool).deleteAll(List.of(1, 2, 3));
+
+        assertAll(
+                () -> assertThat(results).containsExactly(entry(1, true), entry(2, false), entry(3, false)),
+                () -> Mockito.verify(statement, Mockito.times(2)).executeBatch(),
+                () -> Mockito.verify(statement, Mockito.times(2)).setObject(1, 3)
+        );
+    }
+}
@@ -2,17 +2,107 @@ package junit.extension;
 
 import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
 import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
 import org.junit.jupiter.api.extension.ExtensionContext;
 
-public class GlobalExtension implements BeforeAllCallback, AfterTestExecutionCallback {
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Замеряет каждый тест: время по часам, процессорное время и выделенную память потока, выполняющего тест (работа
+ * в других потоках не учитывается), и число сборок мусора за время теста (счетчик общий на JVM, поэтому при
+ * параллельном запуске это верхняя оценка). Результаты всего запуска пишет TestMetricsReport в каталог из параметра
+ * junit.metrics.dir (по умолчанию target/test-metrics) в форматах из junit.metrics.format (по умолчанию csv,json).
+ * Начальный замер лежит в Store контекста теста, поэтому расширение безопасно при параллельном запуске
+ */
+public class GlobalExtension implements BeforeAllCallback, BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(GlobalExtension.class);
+    private static final String START = "start";
+    private static final String REPORT = "report";
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
 
     @Override
     public void beforeAll(ExtensionContext extensionContext) throws Exception {
-        System.out.println("before all callback");
+        report(extensionContext);
+    }
+
+    @Override
+    public void beforeTestExecution(ExtensionContext extensionContext) throws Exception {
+        extensionContext.getStore(NAMESPACE).put(START, Sample.take());
     }
 
     @Override
     public void afterTestExecution(ExtensionContext extensionContext) throws Exception {
-        System.out.println("after test execution");
+        Sample end = Sample.take();
+        Sample start = extensionContext.getStore(NAMESPACE).remove(START, Sample.class);
+        report(extensionContext).add(new TestMetrics(
+                extensionContext.getRequiredTestClass().getName(),
+                extensionContext.getDisplayName(),
+                new TreeSet<>(extensionContext.getTags()),
+                end.wallNanos - start.wallNanos,
+                end.cpuNanos - start.cpuNanos,
+                end.allocatedBytes - start.allocatedBytes,
+                end.gcCount - start.gcCount
+        ));
+    }
+
+    private static TestMetricsReport report(ExtensionContext extensionContext) {
+        ExtensionContext root = extensionContext.getRoot();
+        return root.getStore(NAMESPACE).getOrComputeIfAbsent(REPORT, key -> new TestMetricsReport(
+                Path.of(root.getConfigurationParameter("junit.metrics.dir").orElse("target/test-metrics")),
+                formats(root.getConfigurationParameter("junit.metrics.format").orElse("csv,json"))
+        ), TestMetricsReport.class);
+    }
+
+    private static Set<String> formats(String value) {
+        return Arrays.stream(value.split(","))
+                     .map(String::trim)
+                     .map(String::toLowerCase)
+                     .collect(Collectors.toSet());
+    }
+
+    private static final class Sample {
+
+        private final long wallNanos;
+        private final long cpuNanos;
+        private final long allocatedBytes;
+        private final long gcCount;
+
+        private Sample(long wallNanos, long cpuNanos, long allocatedBytes, long gcCount) {
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.gcCount = gcCount;
+        }
+
+        private static Sample take() {
+            return new Sample(System.nanoTime(), cpuTime(), allocatedBytes(), gcCount());
+        }
+
+        private static long cpuTime() {
+            return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0L;
+        }
+
+        private static long allocatedBytes() {
+            if (THREADS instanceof com.sun.management.ThreadMXBean) {
+                return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+            return 0L;
+        }
+
+        private static long gcCount() {
+            long count = 0L;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0L, collector.getCollectionCount());
+            }
+            return count;
+        }
     }
 }
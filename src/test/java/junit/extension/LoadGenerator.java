@@ -0,0 +1,100 @@
+package junit.extension;
+
+import junit.metrics.LatencyHistogram;
+import lombok.Value;
+import org.junit.jupiter.api.function.Executable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Генератор нагрузки с открытой моделью. i-й вызов назначен на start + i / rate, а задержка считается от назначенного
+ * момента, а не от фактического начала: если система не успевает, ожидание в очереди входит в задержку (поправка
+ * на coordinated omission). Вызовы, которые не удалось начать до истечения удвоенной длительности, не выполняются,
+ * а учитываются как пропущенные с задержкой до этого момента
+ */
+final class LoadGenerator {
+
+    private LoadGenerator() {
+    }
+
+    @Value
+    static class Result {
+
+        long completed;
+        long dropped;
+        long errors;
+        Throwable firstError;
+        double throughput;
+        LatencyHistogram latency;
+    }
+
+    static Result run(int threads, double rate, Duration duration, Executable task) throws InterruptedException {
+        if (threads <= 0 || rate <= 0 || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Threads, rate and duration must be positive");
+        }
+        long intervalNanos = (long) (1e9 / rate);
+        long total = Math.max(1L, (long) (rate * duration.toNanos() / 1e9));
+        long start = System.nanoTime();
+        long deadline = start + 2 * duration.toNanos();
+
+        AtomicLong next = new AtomicLong();
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder completed = new LongAdder();
+        LongAdder dropped = new LongAdder();
+        LongAdder errors = new LongAdder();
+        AtomicReference<Throwable> firstError = new AtomicReference<>();
+        LongAccumulator lastEnd = new LongAccumulator(Math::max, start);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            workers.add(executor.submit(() -> {
+                for (long i = next.getAndIncrement(); i < total; i = next.getAndIncrement()) {
+                    long intended = start + i * intervalNanos;
+                    for (long now = System.nanoTime(); now - intended < 0; now = System.nanoTime()) {
+                        LockSupport.parkNanos(intended - now);
+                    }
+                    if (System.nanoTime() - deadline > 0) {
+                        dropped.increment();
+                        latency.record(deadline - intended);
+                        continue;
+                    }
+                    try {
+                        task.execute();
+                        completed.increment();
+                    } catch (Throwable e) {
+                        errors.increment();
+                        firstError.compareAndSet(null, e);
+                    }
+                    long end = System.nanoTime();
+                    latency.record(end - intended);
+                    lastEnd.accumulate(end);
+                }
+            }));
+        }
+        executor.shutdown();
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = Math.max(lastEnd.get() - start, 1L) / 1e9;
+        return new Result(completed.sum(), dropped.sum(), errors.sum(), firstError.get(), completed.sum() / seconds,
+                latency);
+    }
+}
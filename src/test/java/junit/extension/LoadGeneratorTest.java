@@ -0,0 +1,48 @@
+package junit.extension;
+
+import junit.TestBase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLock;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ResourceLock(value = TestBase.CPU, mode = ResourceAccessMode.READ_WRITE)
+class LoadGeneratorTest {
+
+    /**
+     * Один вызов на 200 мс задерживает все, что было назначено за это время. Без поправки на coordinated omission
+     * медленным оказался бы 1 вызов из 100 и p99 был бы около нуля
+     */
+    @Test
+    void queueingDelayIsCountedInLatency() throws InterruptedException {
+        AtomicBoolean first = new AtomicBoolean(true);
+
+        LoadGenerator.Result result = LoadGenerator.run(1, 200, Duration.ofMillis(500), () -> {
+            if (first.getAndSet(false)) {
+                TimeUnit.MILLISECONDS.sleep(200);
+            }
+        });
+
+        assertThat(result.getCompleted()).isEqualTo(100);
+        assertThat(result.getLatency().valueAtQuantile(0.99)).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(150));
+        assertThat(result.getLatency().valueAtQuantile(0.75)).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    void errorsAreCountedAndFirstIsKept() throws InterruptedException {
+        IllegalStateException failure = new IllegalStateException("boom");
+
+        LoadGenerator.Result result = LoadGenerator.run(2, 100, Duration.ofMillis(100), () -> {
+            throw failure;
+        });
+
+        assertThat(result.getErrors()).isEqualTo(10);
+        assertThat(result.getCompleted()).isZero();
+        assertThat(result.getFirstError()).isSameAs(failure);
+    }
+}
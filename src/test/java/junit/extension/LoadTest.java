@@ -0,0 +1,50 @@
+package junit.extension;
+
+import junit.TestBase;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLock;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Нагрузочный тест: метод вызывается с постоянной частотой rate раз в секунду в течение durationMillis из threads
+ * потоков (открытая модель: следующий вызов назначается по расписанию, а не после завершения предыдущего). Параметры
+ * метода (UserService из UserServiceParamResolver, моки и т.д.) разрешаются один раз и используются во всех вызовах.
+ * Тест падает при исключении в любом вызове, при p99 больше maxP99Millis или пропускной способности меньше
+ * minThroughput (0 - не проверять). Выполняется монопольно по ресурсу CPU
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Test
+@Tag("load")
+@ExtendWith(LoadTestExtension.class)
+@ResourceLock(value = TestBase.CPU, mode = ResourceAccessMode.READ_WRITE)
+public @interface LoadTest {
+
+    int threads() default 4;
+
+    /**
+     * Вызовов в секунду
+     */
+    double rate();
+
+    long durationMillis() default 1_000;
+
+    /**
+     * Прогрев с той же частотой, его результаты отбрасываются
+     */
+    long warmupMillis() default 0;
+
+    double maxP99Millis() default 0;
+
+    /**
+     * Минимум завершенных вызовов в секунду
+     */
+    double minThroughput() default 0;
+}
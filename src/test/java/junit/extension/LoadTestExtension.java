@@ -0,0 +1,62 @@
+package junit.extension;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.InvocationInterceptor;
+import org.junit.jupiter.api.extension.ReflectiveInvocationContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.junit.platform.commons.support.ReflectionSupport;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Вместо одного вызова тестового метода гоняет его под нагрузкой по настройкам LoadTest (см. LoadGenerator),
+ * публикует результаты через publishReportEntry и проверяет SLO
+ */
+public class LoadTestExtension implements InvocationInterceptor {
+
+    @Override
+    public void interceptTestMethod(Invocation<Void> invocation, ReflectiveInvocationContext<Method> invocationContext,
+                                    ExtensionContext extensionContext) throws Throwable {
+        LoadTest loadTest = AnnotationSupport.findAnnotation(invocationContext.getExecutable(), LoadTest.class)
+                                             .orElseThrow(() -> new IllegalStateException("@LoadTest is missing"));
+        invocation.skip();
+        Object target = invocationContext.getTarget().orElse(null);
+        Object[] arguments = invocationContext.getArguments().toArray();
+        Method method = invocationContext.getExecutable();
+
+        if (loadTest.warmupMillis() > 0) {
+            LoadGenerator.run(loadTest.threads(), loadTest.rate(), Duration.ofMillis(loadTest.warmupMillis()),
+                    () -> ReflectionSupport.invokeMethod(method, target, arguments));
+        }
+        LoadGenerator.Result result = LoadGenerator.run(loadTest.threads(), loadTest.rate(),
+                Duration.ofMillis(loadTest.durationMillis()), () -> ReflectionSupport.invokeMethod(method, target, arguments));
+
+        double p99Millis = result.getLatency().valueAtQuantile(0.99) / 1e6;
+        Map<String, String> report = new LinkedHashMap<>();
+        report.put("load.completed", String.valueOf(result.getCompleted()));
+        report.put("load.dropped", String.valueOf(result.getDropped()));
+        report.put("load.errors", String.valueOf(result.getErrors()));
+        report.put("load.throughput", String.format("%.1f/s", result.getThroughput()));
+        report.put("load.p50", String.format("%.3f ms", result.getLatency().valueAtQuantile(0.5) / 1e6));
+        report.put("load.p99", String.format("%.3f ms", p99Millis));
+        report.put("load.max", String.format("%.3f ms", result.getLatency().max() / 1e6));
+        extensionContext.publishReportEntry(report);
+
+        if (result.getFirstError() != null) {
+            throw result.getFirstError();
+        }
+        assertAll(
+                () -> assertTrue(result.getDropped() == 0, () -> result.getDropped() + " calls could not be started in time"),
+                () -> assertTrue(loadTest.maxP99Millis() <= 0 || p99Millis <= loadTest.maxP99Millis(),
+                        () -> "p99 " + p99Millis + " ms exceeds " + loadTest.maxP99Millis() + " ms"),
+                () -> assertTrue(result.getThroughput() >= loadTest.minThroughput(),
+                        () -> "Throughput " + result.getThroughput() + "/s is below " + loadTest.minThroughput() + "/s")
+        );
+    }
+}
@@ -0,0 +1,17 @@
+package junit.extension;
+
+import lombok.Value;
+
+import java.util.Set;
+
+@Value
+public class TestMetrics {
+
+    String className;
+    String testName;
+    Set<String> tags;
+    long wallNanos;
+    long cpuNanos;
+    long allocatedBytes;
+    long gcCount;
+}
@@ -0,0 +1,171 @@
+package junit.extension;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+/**
+ * Собирает метрики всех тестов запуска и при закрытии корневого контекста пишет их в каталог отчета: по каждому тесту,
+ * с агрегацией по классам и по тегам, в CSV и/или JSON
+ */
+public class TestMetricsReport implements ExtensionContext.Store.CloseableResource {
+
+    private final Queue<TestMetrics> tests = new ConcurrentLinkedQueue<>();
+    private final Path directory;
+    private final Set<String> formats;
+
+    public TestMetricsReport(Path directory, Set<String> formats) {
+        this.directory = directory;
+        this.formats = formats;
+    }
+
+    public void add(TestMetrics metrics) {
+        tests.add(metrics);
+    }
+
+    @Override
+    public void close() {
+        List<TestMetrics> snapshot = new ArrayList<>(tests);
+        Map<String, Aggregate> byClass = aggregate(snapshot, metrics -> List.of(metrics.getClassName()));
+        Map<String, Aggregate> byTag = aggregate(snapshot, metrics -> new ArrayList<>(metrics.getTags()));
+        try {
+            Files.createDirectories(directory);
+            if (formats.contains("csv")) {
+                writeTestsCsv(snapshot, directory.resolve("tests.csv"));
+                writeAggregatesCsv("class", byClass, directory.resolve("classes.csv"));
+                writeAggregatesCsv("tag", byTag, directory.resolve("tags.csv"));
+            }
+            if (formats.contains("json")) {
+                writeJson(snapshot, byClass, byTag, directory.resolve("test-metrics.json"));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<String, Aggregate> aggregate(List<TestMetrics> tests, Function<TestMetrics, List<String>> keys) {
+        Map<String, Aggregate> result = new TreeMap<>();
+        for (TestMetrics metrics : tests) {
+            for (String key : keys.apply(metrics)) {
+                result.computeIfAbsent(key, k -> new Aggregate()).add(metrics);
+            }
+        }
+        return result;
+    }
+
+    private static void writeTestsCsv(List<TestMetrics> tests, Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("class,test,tags,wall_nanos,cpu_nanos,allocated_bytes,gc_count\n");
+            for (TestMetrics metrics : tests) {
+                writer.write(csv(metrics.getClassName()) + ',' + csv(metrics.getTestName()) + ','
+                             + csv(String.join(" ", metrics.getTags())) + ',' + metrics.getWallNanos() + ','
+                             + metrics.getCpuNanos() + ',' + metrics.getAllocatedBytes() + ',' + metrics.getGcCount() + '\n');
+            }
+        }
+    }
+
+    private static void writeAggregatesCsv(String keyName, Map<String, Aggregate> aggregates, Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(keyName + ",tests,wall_nanos,max_wall_nanos,cpu_nanos,allocated_bytes,gc_count\n");
+            for (Map.Entry<String, Aggregate> entry : aggregates.entrySet()) {
+                Aggregate aggregate = entry.getValue();
+                writer.write(csv(entry.getKey()) + ',' + aggregate.tests + ',' + aggregate.wallNanos + ','
+                             + aggregate.maxWallNanos + ',' + aggregate.cpuNanos + ',' + aggregate.allocatedBytes + ','
+                             + aggregate.gcCount + '\n');
+            }
+        }
+    }
+
+    private static void writeJson(List<TestMetrics> tests, Map<String, Aggregate> byClass, Map<String, Aggregate> byTag,
+                                  Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("{\n  \"tests\": [");
+            String separator = "\n";
+            for (TestMetrics metrics : tests) {
+                writer.write(separator + "    {\"class\": " + json(metrics.getClassName())
+                             + ", \"test\": " + json(metrics.getTestName())
+                             + ", \"tags\": [" + String.join(", ", metrics.getTags().stream().map(TestMetricsReport::json).toArray(String[]::new)) + "]"
+                             + ", \"wallNanos\": " + metrics.getWallNanos()
+                             + ", \"cpuNanos\": " + metrics.getCpuNanos()
+                             + ", \"allocatedBytes\": " + metrics.getAllocatedBytes()
+                             + ", \"gcCount\": " + metrics.getGcCount() + "}");
+                separator = ",\n";
+            }
+            writer.write("\n  ],\n  \"classes\": ");
+            writeAggregatesJson(byClass, writer);
+            writer.write(",\n  \"tags\": ");
+            writeAggregatesJson(byTag, writer);
+            writer.write("\n}\n");
+        }
+    }
+
+    private static void writeAggregatesJson(Map<String, Aggregate> aggregates, Writer writer) throws IOException {
+        writer.write("{");
+        String separator = "\n";
+        for (Map.Entry<String, Aggregate> entry : aggregates.entrySet()) {
+            Aggregate aggregate = entry.getValue();
+            writer.write(separator + "    " + json(entry.getKey()) + ": {\"tests\": " + aggregate.tests
+                         + ", \"wallNanos\": " + aggregate.wallNanos
+                         + ", \"maxWallNanos\": " + aggregate.maxWallNanos
+                         + ", \"cpuNanos\": " + aggregate.cpuNanos
+                         + ", \"allocatedBytes\": " + aggregate.allocatedBytes
+                         + ", \"gcCount\": " + aggregate.gcCount + "}");
+            separator = ",\n";
+        }
+        writer.write("\n  }");
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String json(String value) {
+        StringBuilder result = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                result.append('\\').append(c);
+            } else if (c < 0x20) {
+                result.append(String.format("\\u%04x", (int) c));
+            } else {
+                result.append(c);
+            }
+        }
+        return result.append('"').toString();
+    }
+
+    private static final class Aggregate {
+
+        private int tests;
+        private long wallNanos;
+        private long maxWallNanos;
+        private long cpuNanos;
+        private long allocatedBytes;
+        private long gcCount;
+
+        private void add(TestMetrics metrics) {
+            tests++;
+            wallNanos += metrics.getWallNanos();
+            maxWallNanos = Math.max(maxWallNanos, metrics.getWallNanos());
+            cpuNanos += metrics.getCpuNanos();
+            allocatedBytes += metrics.getAllocatedBytes();
+            gcCount += metrics.getGcCount();
+        }
+    }
+}
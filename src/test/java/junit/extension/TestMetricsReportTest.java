@@ -0,0 +1,121 @@
+package junit.extension;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+import static org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder.request;
+
+class TestMetricsReportTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesTestsAndAggregatesByClassAndTag() throws IOException {
+        TestMetricsReport report = new TestMetricsReport(directory, Set.of("csv", "json"));
+        report.add(new TestMetrics("a.FirstTest", "fast()", Set.of("Login"), 100, 50, 1_000, 0));
+        report.add(new TestMetrics("a.FirstTest", "slow(int, String)", new TreeSet<>(Set.of("Login", "Slow")), 300, 200, 4_000, 1));
+        report.add(new TestMetrics("b.SecondTest", "quote \"it\"", Set.of(), 70, 60, 500, 2));
+
+        report.close();
+
+        assertAll(
+                () -> assertThat(Files.readAllLines(directory.resolve("tests.csv"))).containsExactly(
+                        "class,test,tags,wall_nanos,cpu_nanos,allocated_bytes,gc_count",
+                        "a.FirstTest,fast(),Login,100,50,1000,0",
+                        "a.FirstTest,\"slow(int, String)\",Login Slow,300,200,4000,1",
+                        "b.SecondTest,\"quote \"\"it\"\"\",,70,60,500,2"),
+                () -> assertThat(Files.readAllLines(directory.resolve("classes.csv"))).containsExactly(
+                        "class,tests,wall_nanos,max_wall_nanos,cpu_nanos,allocated_bytes,gc_count",
+                        "a.FirstTest,2,400,300,250,5000,1",
+                        "b.SecondTest,1,70,70,60,500,2"),
+                () -> assertThat(Files.readAllLines(directory.resolve("tags.csv"))).containsExactly(
+                        "tag,tests,wall_nanos,max_wall_nanos,cpu_nanos,allocated_bytes,gc_count",
+                        "Login,2,400,300,250,5000,1",
+                        "Slow,1,300,300,200,4000,1"),
+                () -> assertThat(Files.readString(directory.resolve("test-metrics.json")))
+                        .contains("{\"class\": \"b.SecondTest\", \"test\": \"quote \\\"it\\\"\", \"tags\": []")
+                        .contains("\"a.FirstTest\": {\"tests\": 2, \"wallNanos\": 400, \"maxWallNanos\": 300, "
+                                  + "\"cpuNanos\": 250, \"allocatedBytes\": 5000, \"gcCount\": 1}")
+                        .contains("\"Slow\": {\"tests\": 1, \"wallNanos\": 300")
+        );
+    }
+
+    @Test
+    void formatsAreWrittenOnlyWhenRequested() {
+        TestMetricsReport report = new TestMetricsReport(directory, Set.of("json"));
+        report.add(new TestMetrics("a.FirstTest", "fast()", Set.of(), 100, 50, 1_000, 0));
+
+        report.close();
+
+        assertThat(directory.toFile().list()).containsExactly("test-metrics.json");
+    }
+
+    /**
+     * GlobalExtension в отдельном запуске: отчет пишется при закрытии корневого контекста, по строке на каждый тест
+     * и с итогом по классу
+     */
+    @Test
+    void globalExtensionReportsEveryTestOfTheRun() throws IOException {
+        LauncherDiscoveryRequest request = request()
+                .selectors(selectClass(Measured.class))
+                .configurationParameter("junit.metrics.dir", directory.toString())
+                .configurationParameter("junit.metrics.format", "csv")
+                .build();
+        SummaryGeneratingListener summary = new SummaryGeneratingListener();
+
+        LauncherFactory.create().execute(request, summary);
+
+        Map<String, String[]> tests = Files.readAllLines(directory.resolve("tests.csv")).stream().skip(1)
+                                           .map(line -> line.split(","))
+                                           .collect(Collectors.toMap(columns -> columns[1], columns -> columns));
+        List<String> classes = Files.readAllLines(directory.resolve("classes.csv"));
+        List<String> tags = Files.readAllLines(directory.resolve("tags.csv"));
+        assertAll(
+                () -> assertThat(summary.getSummary().getTestsSucceededCount()).isEqualTo(2),
+                () -> assertThat(tests).containsOnlyKeys("passes()", "allocates()"),
+                () -> assertThat(tests.get("allocates()")).startsWith(Measured.class.getName(), "allocates()", "Metrics"),
+                () -> assertThat(Long.parseLong(tests.get("allocates()")[5])).isGreaterThanOrEqualTo(1 << 16),
+                () -> assertThat(classes).hasSize(2),
+                () -> assertThat(classes.get(1)).startsWith(Measured.class.getName() + ",2,"),
+                () -> assertThat(tags).hasSize(2),
+                () -> assertThat(tags.get(1)).startsWith("Metrics,1,"),
+                () -> assertThat(directory.resolve("test-metrics.json")).doesNotExist()
+        );
+    }
+
+    /*
+     * Класс, который запускает лаунчер в тесте выше. Surefire вложенные классы сам не запускает
+     */
+
+    @ExtendWith(GlobalExtension.class)
+    static class Measured {
+
+        @Test
+        void passes() {
+        }
+
+        @Test
+        @Tag("Metrics")
+        void allocates() {
+            assertThat(new byte[1 << 16]).hasSize(1 << 16);
+        }
+    }
+}
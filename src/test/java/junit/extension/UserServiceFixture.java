@@ -0,0 +1,29 @@
+package junit.extension;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Настройка UserService, который внедряет UserServiceParamResolver. Ищется на параметре, затем на методе, затем на
+ * классе теста (и на внешних классах для @Nested).
+ * scope - сколько живет заранее заполненный набор пользователей: он строится один раз на метод, класс или весь
+ * запуск, а каждый тест получает свой сервис, восстановленный из сохраненного состояния (без повторного хэширования
+ * паролей), так что изменения одного теста не видны другим
+ */
+@Target({ElementType.TYPE, ElementType.METHOD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface UserServiceFixture {
+
+    Scope scope() default Scope.METHOD;
+
+    /**
+     * Сколько пользователей добавить заранее: пользователь user-i с паролем password-i для i от 1 до users
+     */
+    int users() default 0;
+
+    enum Scope {
+        METHOD, CLASS, RUN
+    }
+}
@@ -1,14 +1,33 @@
 package junit.extension;
 
 import junit.dao.UserDao;
+import junit.dto.User;
 import junit.service.UserService;
+import junit.service.UserServiceOptions;
+import junit.service.UserServiceState;
+import lombok.Value;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.ParameterContext;
 import org.junit.jupiter.api.extension.ParameterResolutionException;
 import org.junit.jupiter.api.extension.ParameterResolver;
+import org.junit.platform.commons.support.AnnotationSupport;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static junit.TestUsers.user;
+
+/**
+ * Экземпляр UserService хранится в Store текущего контекста: внутри одного теста все параметры получают один и тот же
+ * сервис, а параллельно идущие тесты - разные. Заранее заполненный набор пользователей (см. UserServiceFixture)
+ * хранится как UserServiceState в Store контекста своей области и строится один раз на эту область
+ */
 public class UserServiceParamResolver implements ParameterResolver {
 
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(UserServiceParamResolver.class);
+
     @Override
     public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext)
             throws ParameterResolutionException {
@@ -18,6 +37,74 @@ public class UserServiceParamResolver implements ParameterResolver {
     @Override
     public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext)
             throws ParameterResolutionException {
-        return new UserService(new UserDao());
+        Optional<UserServiceFixture> fixture = fixture(parameterContext, extensionContext);
+        int users = fixture.map(UserServiceFixture::users).orElse(0);
+        if (users == 0) {
+            return extensionContext.getStore(NAMESPACE)
+                                   .getOrComputeIfAbsent(UserService.class, key -> new UserService(new UserDao()), UserService.class);
+        }
+        UserServiceFixture.Scope scope = fixture.get().scope();
+        UserServiceState state = scopeContext(scope, extensionContext)
+                .getStore(NAMESPACE)
+                .getOrComputeIfAbsent(new DatasetKey(users), key -> preload(users), UserServiceState.class);
+        return extensionContext.getStore(NAMESPACE)
+                               .getOrComputeIfAbsent(new InstanceKey(scope, users),
+                                       key -> UserService.restore(new UserDao(), UserServiceOptions.defaults(), state),
+                                       UserService.class);
+    }
+
+    private static Optional<UserServiceFixture> fixture(ParameterContext parameterContext, ExtensionContext context) {
+        Optional<UserServiceFixture> onParameter = parameterContext.findAnnotation(UserServiceFixture.class);
+        if (onParameter.isPresent()) {
+            return onParameter;
+        }
+        Optional<UserServiceFixture> onMethod = AnnotationSupport.findAnnotation(context.getTestMethod(), UserServiceFixture.class);
+        if (onMethod.isPresent()) {
+            return onMethod;
+        }
+        for (Optional<Class<?>> type = context.getTestClass(); type.isPresent(); type = type.map(Class::getEnclosingClass)) {
+            Optional<UserServiceFixture> onClass = AnnotationSupport.findAnnotation(type.get(), UserServiceFixture.class);
+            if (onClass.isPresent()) {
+                return onClass;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static ExtensionContext scopeContext(UserServiceFixture.Scope scope, ExtensionContext context) {
+        switch (scope) {
+            case RUN:
+                return context.getRoot();
+            case CLASS:
+                ExtensionContext classContext = context;
+                while (classContext.getTestMethod().isPresent() && classContext.getParent().isPresent()) {
+                    classContext = classContext.getParent().get();
+                }
+                return classContext;
+            default:
+                return context;
+        }
+    }
+
+    private static UserServiceState preload(int users) {
+        UserService userService = new UserService(new UserDao());
+        List<User> dataset = IntStream.rangeClosed(1, users)
+                                      .mapToObj(i -> user(i, "user-" + i, "password-" + i))
+                                      .collect(Collectors.toList());
+        userService.addAll(dataset);
+        return userService.saveState();
+    }
+
+    @Value
+    private static class DatasetKey {
+
+        int users;
+    }
+
+    @Value
+    private static class InstanceKey {
+
+        UserServiceFixture.Scope scope;
+        int users;
     }
 }
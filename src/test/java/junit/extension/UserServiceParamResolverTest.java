@@ -0,0 +1,50 @@
+package junit.extension;
+
+import junit.TestBase;
+import junit.dto.User;
+import junit.service.UserService;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import static junit.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@UserServiceFixture(scope = UserServiceFixture.Scope.RUN, users = 100)
+class UserServiceParamResolverTest extends TestBase {
+
+    @RepeatedTest(3)
+    void everyTestGetsPristinePreloadedCopy(UserService userService) {
+        assertThat(userService.getAll()).hasSize(100);
+        assertThat(userService.login("user-42", "password-42")).map(User::getId).contains(42);
+
+        userService.add(user(101, "user-101", "password-101"));
+
+        assertThat(userService.getAll()).hasSize(101);
+    }
+
+    @Test
+    void allParametersOfOneTestShareInstance(UserService first, UserService second) {
+        assertThat(first).isSameAs(second);
+    }
+
+    @Test
+    void parameterAnnotationOverridesClassAnnotation(@UserServiceFixture(users = 3) UserService userService) {
+        assertThat(userService.getAll()).extracting(User::getUserName).containsExactly("user-1", "user-2", "user-3");
+    }
+
+    @Nested
+    class WithoutDataset {
+
+        @Test
+        @UserServiceFixture
+        void emptyServiceByDefault(UserService userService) {
+            assertThat(userService.getAll()).isEmpty();
+        }
+
+        @Test
+        void outerClassAnnotationApplies(UserService userService) {
+            assertThat(userService.getAll()).hasSize(100);
+        }
+    }
+}
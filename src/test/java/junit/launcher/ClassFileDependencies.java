@@ -0,0 +1,92 @@
+package junit.launcher;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Классы, на которые ссылается class-файл, по его пулу констант: записи CONSTANT_Class и дескрипторы типов в строках
+ * UTF-8 (сигнатуры полей и методов, аннотации, generic-сигнатуры). Код не загружается и не выполняется.
+ * Зависимости через рефлексию, Class.forName по строке и ресурсы так не видны
+ */
+final class ClassFileDependencies {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final Pattern DESCRIPTOR = Pattern.compile("L([\\w/$]+)[;<]");
+
+    private ClassFileDependencies() {
+    }
+
+    /**
+     * @return имена классов через точку (вложенные - через $), включая сам класс
+     */
+    static Set<String> referencedClasses(byte[] classFile) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a class file");
+            }
+            in.readUnsignedShort();
+            in.readUnsignedShort();
+            int count = in.readUnsignedShort();
+            String[] utf8 = new String[count];
+            List<Integer> classNameIndexes = new ArrayList<>();
+            for (int i = 1; i < count; i++) {
+                int tag = in.readUnsignedByte();
+                switch (tag) {
+                    case 1:
+                        utf8[i] = in.readUTF();
+                        break;
+                    case 7:
+                        classNameIndexes.add(in.readUnsignedShort());
+                        break;
+                    case 8: case 16: case 19: case 20:
+                        in.skipBytes(2);
+                        break;
+                    case 15:
+                        in.skipBytes(3);
+                        break;
+                    case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                        in.skipBytes(4);
+                        break;
+                    case 5: case 6:
+                        in.skipBytes(8);
+                        i++;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+                }
+            }
+            Set<String> classes = new HashSet<>();
+            for (int index : classNameIndexes) {
+                String name = utf8[index];
+                if (name.startsWith("[")) {
+                    addDescriptors(name, classes);
+                } else {
+                    classes.add(name.replace('/', '.'));
+                }
+            }
+            for (String value : utf8) {
+                if (value != null) {
+                    addDescriptors(value, classes);
+                }
+            }
+            return classes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void addDescriptors(String value, Set<String> classes) {
+        Matcher matcher = DESCRIPTOR.matcher(value);
+        while (matcher.find()) {
+            classes.add(matcher.group(1).replace('/', '.'));
+        }
+    }
+}
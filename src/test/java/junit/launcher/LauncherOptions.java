@@ -0,0 +1,98 @@
+package junit.launcher;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+import java.nio.file.Path;
+import java.util.List;
+
+@Value
+@Builder(toBuilder = true)
+public class LauncherOptions {
+
+    @Singular("packageName")
+    List<String> packages;
+    @Singular("className")
+    List<String> classes;
+    @Singular
+    List<String> includeTags;
+    @Singular
+    List<String> excludeTags;
+    /**
+     * Номер шарда с нуля и число шардов: каждая JVM запускает только свою часть тестовых классов
+     */
+    @Builder.Default
+    int shardIndex = 0;
+    @Builder.Default
+    int shardCount = 1;
+    /**
+     * Файл с длительностями и результатами прошлых запусков, по нему балансируются шарды и выбираются упавшие тесты
+     */
+    @Builder.Default
+    Path history = Path.of("target", "test-history.tsv");
+    @Builder.Default
+    boolean failedFirst = true;
+    /**
+     * Не запускать тесты, а свести результаты всех шардов в общую историю (после того, как отработали все шарды)
+     */
+    @Builder.Default
+    boolean mergeHistory = false;
+    /**
+     * Запускать только классы своего шарда, затронутые изменениями class-файлов с прошлого запуска (см. TestImpact)
+     */
+    @Builder.Default
+    boolean impactOnly = false;
+    @Builder.Default
+    Path impactIndex = Path.of("target", "test-impact.tsv");
+    @Builder.Default
+    List<Path> classDirectories = List.of(Path.of("target", "classes"), Path.of("target", "test-classes"));
+
+    /**
+     * Аргументы: --select-package=junit.service, --select-class=junit.service.UserServiceTest, --include-tag=Login,
+     * --exclude-tag=slow, --shard=1/4 (номер с единицы), --history=path, --no-failed-first, --impact,
+     * --impact-index=path, --merge-history.
+     * Без селекторов запускается весь пакет junit
+     */
+    public static LauncherOptions parse(String... args) {
+        LauncherOptionsBuilder builder = builder();
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--select-package=")) {
+                builder.packageName(value);
+            } else if (arg.startsWith("--select-class=")) {
+                builder.className(value);
+            } else if (arg.startsWith("--include-tag=")) {
+                builder.includeTag(value);
+            } else if (arg.startsWith("--exclude-tag=")) {
+                builder.excludeTag(value);
+            } else if (arg.startsWith("--shard=")) {
+                String[] shard = value.split("/");
+                if (shard.length != 2) {
+                    throw new IllegalArgumentException("Shard must look like 1/4: " + arg);
+                }
+                builder.shardIndex(Integer.parseInt(shard[0]) - 1).shardCount(Integer.parseInt(shard[1]));
+            } else if (arg.startsWith("--history=")) {
+                builder.history(Path.of(value));
+            } else if (arg.equals("--no-failed-first")) {
+                builder.failedFirst(false);
+            } else if (arg.equals("--merge-history")) {
+                builder.mergeHistory(true);
+            } else if (arg.equals("--impact")) {
+                builder.impactOnly(true);
+            } else if (arg.startsWith("--impact-index=")) {
+                builder.impactIndex(Path.of(value));
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        LauncherOptions options = builder.build();
+        if (options.shardCount <= 0 || options.shardIndex < 0 || options.shardIndex >= options.shardCount) {
+            throw new IllegalArgumentException("Shard index must be in [1, " + options.shardCount + "]");
+        }
+        if (options.packages.isEmpty() && options.classes.isEmpty()) {
+            return options.toBuilder().packageName("junit").build();
+        }
+        return options;
+    }
+}
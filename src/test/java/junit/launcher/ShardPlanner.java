@@ -0,0 +1,53 @@
+package junit.launcher;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+/**
+ * Делит тестовые классы на шарды жадно (LPT): классы по убыванию ожидаемой длительности, каждый - в наименее
+ * загруженный шард. Класс без истории весит как медиана известных. План детерминирован, так что все JVM, получив
+ * одинаковые классы и историю, разбивают их одинаково и без пересечений
+ */
+public final class ShardPlanner {
+
+    private static final long UNKNOWN_DURATION_MILLIS = 1_000L;
+
+    private ShardPlanner() {
+    }
+
+    public static List<List<String>> plan(List<String> classNames, int shardCount, TestHistory history) {
+        List<String> sorted = new ArrayList<>(new TreeSet<>(classNames));
+        long unknown = medianDuration(sorted, history);
+        sorted.sort(Comparator.comparingLong((String name) -> history.durationMillis(name).orElse(unknown)).reversed()
+                              .thenComparing(Comparator.naturalOrder()));
+
+        List<List<String>> shards = new ArrayList<>(shardCount);
+        PriorityQueue<long[]> load = new PriorityQueue<>(Comparator.<long[]>comparingLong(shard -> shard[0])
+                                                                   .thenComparingLong(shard -> shard[1]));
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ArrayList<>());
+            load.add(new long[]{0L, i});
+        }
+        for (String name : sorted) {
+            long[] lightest = load.poll();
+            shards.get((int) lightest[1]).add(name);
+            lightest[0] += history.durationMillis(name).orElse(unknown);
+            load.add(lightest);
+        }
+        return shards;
+    }
+
+    private static long medianDuration(List<String> classNames, TestHistory history) {
+        long[] known = classNames.stream()
+                                 .map(history::durationMillis)
+                                 .filter(OptionalLong::isPresent)
+                                 .mapToLong(OptionalLong::getAsLong)
+                                 .sorted()
+                                 .toArray();
+        return known.length == 0 ? UNKNOWN_DURATION_MILLIS : known[known.length / 2];
+    }
+}
@@ -0,0 +1,200 @@
+package junit.launcher;
+
+import org.junit.platform.engine.DiscoverySelector;
+import org.junit.platform.engine.discovery.DiscoverySelectors;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.launcher.Launcher;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.TagFilter;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Запуск своей части тестов: обнаружение по селекторам и тегам, выбор классов своего шарда (ShardPlanner), при
+ * --impact - только затронутых изменениями (TestImpact) и упавших в прошлый раз. Сначала запускаются классы, упавшие
+ * в прошлый раз, и только потом остальные. Результаты печатаются по мере выполнения, в конце - общая сводка.
+ * Параллельность внутри JVM настраивается как обычно, через junit-platform.properties.
+ * Все шарды планируют по одной и той же общей истории и только читают ее: результаты шарда пишутся в свой файл рядом
+ * с ней, а в общую историю их сводит mergeHistory после того, как отработали все шарды. Иначе шард, запущенный позже,
+ * планировал бы по истории, уже измененной предыдущими, и часть классов не попала бы ни в один шард
+ */
+public class ShardedTestLauncher {
+
+    private static final String SHARD_PREFIX = "shard-";
+
+    private final Launcher launcher;
+    private final PrintStream out;
+
+    public ShardedTestLauncher(PrintStream out) {
+        this(LauncherFactory.create(), out);
+    }
+
+    ShardedTestLauncher(Launcher launcher, PrintStream out) {
+        this.launcher = launcher;
+        this.out = out;
+    }
+
+    /**
+     * @return число упавших тестов и контейнеров
+     */
+    public long run(LauncherOptions options) {
+        TestHistory history = TestHistory.load(options.getHistory());
+        TestHistory results = new TestHistory();
+        List<String> discovered = discoverClasses(options);
+        List<String> shard = ShardPlanner.plan(discovered, options.getShardCount(), history)
+                                         .get(options.getShardIndex());
+        out.printf("Shard %d/%d: %d of %d test classes%n", options.getShardIndex() + 1, options.getShardCount(),
+                shard.size(), discovered.size());
+
+        List<String> selected = shard;
+        TestImpact impact = null;
+        if (options.isImpactOnly()) {
+            impact = TestImpact.scan(options.getClassDirectories());
+            Optional<List<String>> affected = impact.select(shard, impactIndex(options));
+            if (affected.isPresent()) {
+                selected = shard.stream()
+                                .filter(className -> affected.get().contains(className) || history.failedLastTime(className))
+                                .collect(Collectors.toList());
+                out.printf("Test impact: %d of %d classes affected%n", selected.size(), shard.size());
+            } else {
+                out.println("Test impact: no usable dependency data, running all classes");
+            }
+        }
+
+        List<String> failedBefore = new ArrayList<>();
+        List<String> rest = new ArrayList<>();
+        for (String className : selected) {
+            (options.isFailedFirst() && history.failedLastTime(className) ? failedBefore : rest).add(className);
+        }
+
+        StreamingListener streaming = new StreamingListener(out, results);
+        long failures = 0;
+        if (!failedBefore.isEmpty()) {
+            out.println("Running " + failedBefore.size() + " classes that failed last time first");
+            failures += execute(request(options, failedBefore), streaming);
+        }
+        if (!rest.isEmpty()) {
+            failures += execute(request(options, rest), streaming);
+        }
+        if (options.getShardCount() == 1) {
+            history.putAll(results);
+            history.save(options.getHistory());
+        } else {
+            results.save(shardHistory(options));
+        }
+        if (impact != null) {
+            impact.save(impactIndex(options), shard);
+        }
+        return failures;
+    }
+
+    /**
+     * Сводит результаты шардов в общую историю и удаляет файлы шардов. Вызывается один раз, когда отработали все шарды
+     *
+     * @return сколько файлов шардов сведено
+     */
+    public static int mergeHistory(Path history) {
+        Path directory = history.toAbsolutePath().getParent();
+        String suffix = "-" + history.getFileName();
+        List<Path> parts;
+        try (Stream<Path> files = Files.list(directory)) {
+            parts = files.filter(file -> {
+                             String name = file.getFileName().toString();
+                             return name.startsWith(SHARD_PREFIX) && name.endsWith(suffix);
+                         })
+                         .sorted()
+                         .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        TestHistory merged = TestHistory.load(history);
+        parts.forEach(part -> merged.putAll(TestHistory.load(part)));
+        merged.save(history);
+        for (Path part : parts) {
+            try {
+                Files.delete(part);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return parts.size();
+    }
+
+    static Path shardHistory(LauncherOptions options) {
+        return perShard(options.getHistory(), options);
+    }
+
+    /**
+     * У каждого шарда свой индекс: шарды могут запускаться из одного каталога target в разное время
+     */
+    private static Path impactIndex(LauncherOptions options) {
+        if (options.getShardCount() == 1) {
+            return options.getImpactIndex();
+        }
+        return perShard(options.getImpactIndex(), options);
+    }
+
+    private static Path perShard(Path file, LauncherOptions options) {
+        return file.resolveSibling(SHARD_PREFIX + (options.getShardIndex() + 1) + "-of-" + options.getShardCount()
+                                   + "-" + file.getFileName());
+    }
+
+    private long execute(LauncherDiscoveryRequest request, StreamingListener streaming) {
+        SummaryGeneratingListener summary = new SummaryGeneratingListener();
+        launcher.execute(request, summary, streaming);
+        PrintWriter writer = new PrintWriter(out);
+        summary.getSummary().printTo(writer);
+        summary.getSummary().printFailuresTo(writer, 10);
+        writer.flush();
+        return summary.getSummary().getTotalFailureCount();
+    }
+
+    private List<String> discoverClasses(LauncherOptions options) {
+        List<DiscoverySelector> selectors = new ArrayList<>();
+        options.getPackages().forEach(name -> selectors.add(DiscoverySelectors.selectPackage(name)));
+        options.getClasses().forEach(name -> selectors.add(DiscoverySelectors.selectClass(name)));
+        TestPlan testPlan = launcher.discover(withTags(LauncherDiscoveryRequestBuilder.request().selectors(selectors), options));
+        List<String> classNames = new ArrayList<>();
+        for (TestIdentifier engine : testPlan.getRoots()) {
+            for (TestIdentifier child : testPlan.getChildren(engine)) {
+                child.getSource()
+                     .filter(ClassSource.class::isInstance)
+                     .ifPresent(source -> classNames.add(((ClassSource) source).getClassName()));
+            }
+        }
+        return classNames;
+    }
+
+    private static LauncherDiscoveryRequest request(LauncherOptions options, List<String> classNames) {
+        return withTags(LauncherDiscoveryRequestBuilder.request()
+                                                       .selectors(classNames.stream()
+                                                                            .map(DiscoverySelectors::selectClass)
+                                                                            .collect(Collectors.toList())),
+                options);
+    }
+
+    private static LauncherDiscoveryRequest withTags(LauncherDiscoveryRequestBuilder builder, LauncherOptions options) {
+        if (!options.getIncludeTags().isEmpty()) {
+            builder.filters(TagFilter.includeTags(options.getIncludeTags()));
+        }
+        if (!options.getExcludeTags().isEmpty()) {
+            builder.filters(TagFilter.excludeTags(options.getExcludeTags()));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,142 @@
+package junit.launcher;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShardedTestLauncherTest {
+
+    @Test
+    void parseArguments() {
+        LauncherOptions options = LauncherOptions.parse("--select-package=junit.service", "--include-tag=Login",
+                "--exclude-tag=slow", "--shard=2/4", "--history=build/history.tsv", "--no-failed-first");
+
+        assertAll(
+                () -> assertThat(options.getPackages()).containsExactly("junit.service"),
+                () -> assertThat(options.getIncludeTags()).containsExactly("Login"),
+                () -> assertThat(options.getExcludeTags()).containsExactly("slow"),
+                () -> assertThat(options.getShardIndex()).isEqualTo(1),
+                () -> assertThat(options.getShardCount()).isEqualTo(4),
+                () -> assertThat(options.getHistory()).isEqualTo(Path.of("build/history.tsv")),
+                () -> assertThat(options.isFailedFirst()).isFalse()
+        );
+    }
+
+    @Test
+    void selectWholeProjectByDefaultAndRejectBadShard() {
+        assertThat(LauncherOptions.parse().getPackages()).containsExactly("junit");
+        assertThrows(IllegalArgumentException.class, () -> LauncherOptions.parse("--shard=5/4"));
+        assertThrows(IllegalArgumentException.class, () -> LauncherOptions.parse("--parallel"));
+    }
+
+    @Test
+    void shardsAreBalancedByHistoryAndCoverEveryClassOnce() {
+        TestHistory history = new TestHistory();
+        history.record("A", 9_000, false);
+        history.record("B", 5_000, false);
+        history.record("C", 4_000, false);
+        history.record("D", 1_000, false);
+        history.record("E", 1_000, false);
+
+        List<List<String>> shards = ShardPlanner.plan(List.of("E", "D", "C", "B", "A", "F"), 2, history);
+
+        List<String> all = new ArrayList<>();
+        shards.forEach(all::addAll);
+        assertThat(all).containsExactlyInAnyOrder("A", "B", "C", "D", "E", "F");
+        assertThat(shards.get(0)).containsExactly("A", "F");
+        assertThat(shards.get(1)).containsExactly("B", "C", "D", "E");
+        assertThat(ShardPlanner.plan(List.of("A", "B", "C", "D", "E", "F"), 2, history)).isEqualTo(shards);
+    }
+
+    @Test
+    void historySurvivesRoundTrip(@TempDir Path directory) {
+        Path file = directory.resolve("history.tsv");
+        TestHistory history = new TestHistory();
+        history.record("junit.service.UserServiceTest", 1_234, true);
+        history.record("junit.service.UserQueryTest", 56, false);
+        history.save(file);
+
+        TestHistory loaded = TestHistory.load(file);
+
+        assertThat(loaded.durationMillis("junit.service.UserServiceTest")).hasValue(1_234);
+        assertThat(loaded.failedLastTime("junit.service.UserServiceTest")).isTrue();
+        assertThat(loaded.failedLastTime("junit.service.UserQueryTest")).isFalse();
+        assertThat(loaded.durationMillis("dummy")).isEmpty();
+    }
+
+    /**
+     * История намеренно не совпадает с реальными длительностями: если бы шард 1 перезаписывал общую историю, шард 2
+     * спланировал бы уже по ней, и Beta не досталась бы никому
+     */
+    @Test
+    void shardsRunInSequenceCoverEveryDiscoveredClassOnce(@TempDir Path directory) {
+        Path historyFile = directory.resolve("history.tsv");
+        TestHistory skewed = new TestHistory();
+        skewed.record(Alpha.class.getName(), 9_000, false);
+        skewed.record(Beta.class.getName(), 5_000, false);
+        skewed.record(Gamma.class.getName(), 4_000, false);
+        skewed.record(Delta.class.getName(), 1_000, false);
+        skewed.save(historyFile);
+        ShardedTestLauncher launcher = new ShardedTestLauncher(new PrintStream(OutputStream.nullOutputStream()));
+
+        List<String> ran = new ArrayList<>();
+        for (int shard = 1; shard <= 2; shard++) {
+            LauncherOptions options = LauncherOptions.parse("--select-class=" + Alpha.class.getName(),
+                    "--select-class=" + Beta.class.getName(), "--select-class=" + Gamma.class.getName(),
+                    "--select-class=" + Delta.class.getName(), "--shard=" + shard + "/2", "--history=" + historyFile);
+            assertThat(launcher.run(options)).isZero();
+            ran.addAll(TestHistory.load(ShardedTestLauncher.shardHistory(options)).classNames());
+        }
+        int merged = ShardedTestLauncher.mergeHistory(historyFile);
+
+        List<String> discovered = List.of(Alpha.class.getName(), Beta.class.getName(), Gamma.class.getName(),
+                Delta.class.getName());
+        assertAll(
+                () -> assertThat(ran).containsExactlyInAnyOrderElementsOf(discovered),
+                () -> assertThat(merged).isEqualTo(2),
+                () -> assertThat(TestHistory.load(historyFile).durationMillis(Alpha.class.getName()).getAsLong()).isLessThan(9_000),
+                () -> assertThat(directory.toFile().list()).containsExactly("history.tsv")
+        );
+    }
+
+    /*
+     * Классы, которые запускает лаунчер в тесте выше. Surefire вложенные классы сам не запускает
+     */
+
+    static class Alpha {
+
+        @Test
+        void passes() {
+        }
+    }
+
+    static class Beta {
+
+        @Test
+        void passes() {
+        }
+    }
+
+    static class Gamma {
+
+        @Test
+        void passes() {
+        }
+    }
+
+    static class Delta {
+
+        @Test
+        void passes() {
+        }
+    }
+}
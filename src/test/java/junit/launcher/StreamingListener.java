@@ -0,0 +1,103 @@
+package junit.launcher;
+
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Печатает результат каждого теста сразу по завершении (упавшие - с причиной), не дожидаясь конца запуска, и пишет
+ * длительность и результат каждого верхнеуровневого тестового класса в TestHistory. Безопасен при параллельном
+ * выполнении тестов
+ */
+public class StreamingListener implements TestExecutionListener {
+
+    private final PrintStream out;
+    private final TestHistory history;
+    private final Map<String, Long> classStarts = new ConcurrentHashMap<>();
+    private final Set<String> failedClasses = ConcurrentHashMap.newKeySet();
+    private volatile TestPlan testPlan;
+
+    public StreamingListener(PrintStream out, TestHistory history) {
+        this.out = out;
+        this.history = history;
+    }
+
+    @Override
+    public void testPlanExecutionStarted(TestPlan testPlan) {
+        this.testPlan = testPlan;
+    }
+
+    @Override
+    public void executionStarted(TestIdentifier testIdentifier) {
+        topLevelClass(testIdentifier).ifPresent(className -> classStarts.put(className, System.nanoTime()));
+    }
+
+    @Override
+    public void executionSkipped(TestIdentifier testIdentifier, String reason) {
+        if (testIdentifier.isTest()) {
+            out.println("SKIPPED " + name(testIdentifier) + " (" + reason + ")");
+        }
+    }
+
+    @Override
+    public void executionFinished(TestIdentifier testIdentifier, TestExecutionResult result) {
+        boolean failed = result.getStatus() != TestExecutionResult.Status.SUCCESSFUL;
+        if (testIdentifier.isTest() || failed) {
+            out.println(result.getStatus() + " " + name(testIdentifier)
+                    + result.getThrowable().map(cause -> ": " + cause).orElse(""));
+        }
+        if (failed) {
+            owningClass(testIdentifier).ifPresent(failedClasses::add);
+        }
+        topLevelClass(testIdentifier).ifPresent(className -> {
+            Long start = classStarts.remove(className);
+            long millis = start == null ? 0L : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            history.record(className, millis, failedClasses.contains(className));
+        });
+    }
+
+    private String name(TestIdentifier testIdentifier) {
+        return owningClass(testIdentifier).map(className -> className + " > ").orElse("")
+                + testIdentifier.getDisplayName();
+    }
+
+    /**
+     * Имя класса, если идентификатор - класс верхнего уровня (прямой потомок движка)
+     */
+    private Optional<String> topLevelClass(TestIdentifier testIdentifier) {
+        boolean topLevel = testIdentifier.getParentId()
+                                         .flatMap(parentId -> testPlan.getTestIdentifier(parentId).getParentId())
+                                         .isEmpty();
+        return topLevel ? className(testIdentifier) : Optional.empty();
+    }
+
+    /**
+     * Внешний тестовый класс, к которому относится идентификатор (для @Nested - объемлющий)
+     */
+    private Optional<String> owningClass(TestIdentifier testIdentifier) {
+        Optional<String> owner = Optional.empty();
+        for (TestIdentifier current = testIdentifier; current != null;
+             current = current.getParentId().map(testPlan::getTestIdentifier).orElse(null)) {
+            Optional<String> className = className(current);
+            if (className.isPresent()) {
+                owner = className;
+            }
+        }
+        return owner;
+    }
+
+    private static Optional<String> className(TestIdentifier testIdentifier) {
+        return testIdentifier.getSource()
+                             .filter(ClassSource.class::isInstance)
+                             .map(source -> ((ClassSource) source).getClassName());
+    }
+}
@@ -0,0 +1,97 @@
+package junit.launcher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Длительность и результат последнего запуска по тестовым классам. Хранится в TSV: имя класса, миллисекунды,
+ * FAILED или PASSED. При сведении (putAll) обновляются только классы, запущенные в этот раз, остальные записи
+ * (например, других шардов) сохраняются
+ */
+public class TestHistory {
+
+    private final Map<String, Entry> entries = new TreeMap<>();
+
+    public static TestHistory load(Path file) {
+        TestHistory history = new TestHistory();
+        if (!Files.exists(file)) {
+            return history;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] columns = line.split("\t");
+                if (columns.length == 3) {
+                    history.record(columns[0], Long.parseLong(columns[1]), "FAILED".equals(columns[2]));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NumberFormatException e) {
+            // испорченная история не должна мешать запуску: просто балансируем без нее
+            return new TestHistory();
+        }
+        return history;
+    }
+
+    public synchronized void record(String className, long millis, boolean failed) {
+        entries.put(className, new Entry(millis, failed));
+    }
+
+    public void putAll(TestHistory other) {
+        Map<String, Entry> copy;
+        synchronized (other) {
+            copy = new TreeMap<>(other.entries);
+        }
+        synchronized (this) {
+            entries.putAll(copy);
+        }
+    }
+
+    public synchronized Set<String> classNames() {
+        return Set.copyOf(entries.keySet());
+    }
+
+    public synchronized OptionalLong durationMillis(String className) {
+        Entry entry = entries.get(className);
+        return entry == null ? OptionalLong.empty() : OptionalLong.of(entry.millis);
+    }
+
+    public synchronized boolean failedLastTime(String className) {
+        Entry entry = entries.get(className);
+        return entry != null && entry.failed;
+    }
+
+    public synchronized void save(Path file) {
+        List<String> lines = new ArrayList<>(entries.size());
+        entries.forEach((className, entry) ->
+                lines.add(className + "\t" + entry.millis + "\t" + (entry.failed ? "FAILED" : "PASSED")));
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.write(file, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Entry {
+
+        final long millis;
+        final boolean failed;
+
+        Entry(long millis, boolean failed) {
+            this.millis = millis;
+            this.failed = failed;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package junit.launcher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Выбор тестов, затронутых изменениями. Каталоги классов (target/classes, target/test-classes) сканируются целиком:
+ * контрольная сумма каждого файла и граф ссылок между классами по пулу констант (ClassFileDependencies). Индекс
+ * прошлого запуска хранит суммы всех файлов и транзитивные зависимости каждого тестового класса. Тест выбирается,
+ * если изменился, появился или исчез класс из его старых или новых зависимостей, а также если для теста нет данных.
+ * Если индекса нет или изменился не class-файл (ресурс), выбор невозможен и запускается все
+ */
+public class TestImpact {
+
+    private static final String HASH = "H";
+    private static final String DEPENDENCIES = "D";
+
+    private final Map<String, Long> hashes;
+    private final Map<String, Set<String>> references;
+
+    private TestImpact(Map<String, Long> hashes, Map<String, Set<String>> references) {
+        this.hashes = hashes;
+        this.references = references;
+    }
+
+    public static TestImpact scan(Collection<Path> classDirectories) {
+        Map<String, Long> hashes = new TreeMap<>();
+        Map<String, Set<String>> references = new HashMap<>();
+        for (Path directory : classDirectories) {
+            if (!Files.isDirectory(directory)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                    byte[] bytes = Files.readAllBytes(file);
+                    String relative = directory.relativize(file).toString().replace('\\', '/');
+                    if (relative.endsWith(".class")) {
+                        String className = relative.substring(0, relative.length() - ".class".length()).replace('/', '.');
+                        hashes.put(className, checksum(bytes));
+                        references.put(className, ClassFileDependencies.referencedClasses(bytes));
+                    } else {
+                        hashes.put(resourceKey(relative), checksum(bytes));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return new TestImpact(hashes, references);
+    }
+
+    /**
+     * Транзитивные зависимости класса среди просканированных классов, включая его самого
+     */
+    public Set<String> dependenciesOf(String className) {
+        Set<String> visited = new TreeSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(className);
+        while (!queue.isEmpty()) {
+            String current = queue.poll();
+            if (references.containsKey(current) && visited.add(current)) {
+                queue.addAll(references.get(current));
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * @return затронутые тестовые классы в исходном порядке или empty, если нужно запускать все
+     */
+    public Optional<List<String>> select(List<String> testClasses, Path indexFile) {
+        if (!Files.exists(indexFile)) {
+            return Optional.empty();
+        }
+        Map<String, Long> previousHashes = new HashMap<>();
+        Map<String, Set<String>> previousDependencies = new HashMap<>();
+        try {
+            for (String line : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+                String[] columns = line.split("\t", -1);
+                if (columns.length != 3) {
+                    return Optional.empty();
+                }
+                if (HASH.equals(columns[0])) {
+                    previousHashes.put(columns[1], Long.parseLong(columns[2]));
+                } else if (DEPENDENCIES.equals(columns[0])) {
+                    previousDependencies.put(columns[1], Set.of(columns[2].split(",")));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+
+        Set<String> changed = new HashSet<>();
+        hashes.forEach((key, hash) -> {
+            if (!hash.equals(previousHashes.get(key))) {
+                changed.add(key);
+            }
+        });
+        previousHashes.keySet().stream().filter(key -> !hashes.containsKey(key)).forEach(changed::add);
+        if (changed.stream().anyMatch(TestImpact::isResource)) {
+            return Optional.empty();
+        }
+
+        List<String> affected = new ArrayList<>();
+        for (String testClass : testClasses) {
+            Set<String> before = previousDependencies.get(testClass);
+            if (before == null
+                    || before.stream().anyMatch(changed::contains)
+                    || dependenciesOf(testClass).stream().anyMatch(changed::contains)) {
+                affected.add(testClass);
+            }
+        }
+        return Optional.of(affected);
+    }
+
+    /**
+     * Запоминает текущее состояние как базу для следующего выбора
+     */
+    public void save(Path indexFile, List<String> testClasses) {
+        List<String> lines = new ArrayList<>(hashes.size() + testClasses.size());
+        hashes.forEach((key, hash) -> lines.add(HASH + "\t" + key + "\t" + hash));
+        for (String testClass : new TreeSet<>(testClasses)) {
+            lines.add(DEPENDENCIES + "\t" + testClass + "\t" + String.join(",", dependenciesOf(testClass)));
+        }
+        try {
+            if (indexFile.getParent() != null) {
+                Files.createDirectories(indexFile.getParent());
+            }
+            Files.write(indexFile, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long checksum(byte[] bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    private static String resourceKey(String relativePath) {
+        return "/" + relativePath;
+    }
+
+    private static boolean isResource(String key) {
+        return key.startsWith("/");
+    }
+}
@@ -0,0 +1,107 @@
+package junit.launcher;
+
+import junit.dao.UserDao;
+import junit.dto.User;
+import junit.service.UserQuery;
+import junit.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Работает на копии настоящих скомпилированных классов, чтобы изменения файлов не задевали сборку
+ */
+class TestImpactTest {
+
+    private static final String USER_QUERY_TEST = "junit.service.UserQueryTest";
+    private static final String CONNECTION_POOL_TEST = "junit.dao.pool.ConnectionPoolTest";
+    private static final List<String> TESTS = List.of(USER_QUERY_TEST, CONNECTION_POOL_TEST);
+
+    @TempDir
+    Path directory;
+    private Path mainClasses;
+    private Path testClasses;
+    private Path index;
+
+    @BeforeEach
+    void copyClasses() throws Exception {
+        mainClasses = copy(location(UserService.class), directory.resolve("classes"));
+        testClasses = copy(location(TestImpactTest.class), directory.resolve("test-classes"));
+        index = directory.resolve("test-impact.tsv");
+    }
+
+    @Test
+    void constantPoolReferencesAreFound() throws IOException {
+        byte[] classFile = Files.readAllBytes(classFile(mainClasses, UserService.class));
+
+        assertThat(ClassFileDependencies.referencedClasses(classFile))
+                .contains(UserService.class.getName(), UserDao.class.getName(), User.class.getName(),
+                        UserQuery.class.getName());
+    }
+
+    @Test
+    void onlyTestsDependingOnChangedClassAreSelected() throws IOException {
+        TestImpact.scan(List.of(mainClasses, testClasses)).save(index, TESTS);
+        Files.write(classFile(mainClasses, UserQuery.class), new byte[]{0}, StandardOpenOption.APPEND);
+
+        assertThat(TestImpact.scan(List.of(mainClasses, testClasses)).select(TESTS, index))
+                .hasValue(List.of(USER_QUERY_TEST));
+    }
+
+    @Test
+    void nothingIsSelectedWithoutChanges() {
+        TestImpact.scan(List.of(mainClasses, testClasses)).save(index, TESTS);
+
+        assertThat(TestImpact.scan(List.of(mainClasses, testClasses)).select(TESTS, index)).hasValue(List.of());
+    }
+
+    @Test
+    void fallBackToFullRunWithoutIndexOrAfterResourceChange() throws IOException {
+        assertThat(TestImpact.scan(List.of(mainClasses, testClasses)).select(TESTS, index)).isEmpty();
+
+        TestImpact.scan(List.of(mainClasses, testClasses)).save(index, TESTS);
+        Files.writeString(testClasses.resolve("junit-platform.properties"), "\n", StandardOpenOption.APPEND);
+
+        assertThat(TestImpact.scan(List.of(mainClasses, testClasses)).select(TESTS, index)).isEmpty();
+    }
+
+    @Test
+    void testWithoutRecordedDependenciesIsSelected() {
+        TestImpact.scan(List.of(mainClasses, testClasses)).save(index, List.of(USER_QUERY_TEST));
+
+        assertThat(TestImpact.scan(List.of(mainClasses, testClasses)).select(TESTS, index))
+                .hasValue(List.of(CONNECTION_POOL_TEST));
+    }
+
+    private static Path location(Class<?> type) throws URISyntaxException {
+        return Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+
+    private static Path classFile(Path root, Class<?> type) {
+        return root.resolve(type.getName().replace('.', '/') + ".class");
+    }
+
+    private static Path copy(Path source, Path target) throws IOException {
+        try (Stream<Path> files = Files.walk(source)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Path copy = target.resolve(source.relativize(file).toString());
+                if (Files.isDirectory(file)) {
+                    Files.createDirectories(copy);
+                } else {
+                    Files.copy(file, copy);
+                }
+            }
+        }
+        return target;
+    }
+}
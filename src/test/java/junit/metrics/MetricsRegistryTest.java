@@ -0,0 +1,105 @@
+package junit.metrics;
+
+import junit.dao.UserDao;
+import junit.dto.User;
+import junit.service.UserService;
+import junit.service.UserServiceOptions;
+import junit.service.security.PasswordHasher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mockito;
+
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static junit.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+class MetricsRegistryTest {
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 15, 16, 17, 1_000, 123_456_789, Long.MAX_VALUE})
+    void histogramBucketBoundsValueWithinOneSixteenth(long value) {
+        long highest = LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(value));
+
+        assertThat(highest).isGreaterThanOrEqualTo(value);
+        assertThat(highest - value).isLessThanOrEqualTo(value / 16);
+    }
+
+    @Test
+    void histogramQuantiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1_000; micros++) {
+            histogram.record(micros * 1_000);
+        }
+
+        assertAll(
+                () -> assertThat(histogram.count()).isEqualTo(1_000),
+                () -> assertThat(histogram.mean()).isCloseTo(500_500.0, within(0.1)),
+                () -> assertThat(histogram.valueAtQuantile(0.5)).isCloseTo(500_000L, within(500_000L / 16)),
+                () -> assertThat(histogram.valueAtQuantile(0.99)).isCloseTo(990_000L, within(990_000L / 16)),
+                () -> assertThat(histogram.valueAtQuantile(1.0)).isEqualTo(1_000_000L)
+        );
+    }
+
+    @Test
+    void disabledRegistryRecordsNothing() {
+        MetricsRegistry metrics = MetricsRegistry.disabled();
+        OperationMetrics operation = metrics.operation("test");
+
+        operation.stop(operation.start(), true);
+
+        assertThat(operation.start()).isZero();
+        assertThat(operation.snapshot().getCount()).isZero();
+        assertThat(metrics.snapshot()).isEmpty();
+    }
+
+    @Test
+    void userServiceCountsLoginOutcomes() {
+        MetricsRegistry metrics = MetricsRegistry.create();
+        UserService userService = new UserService(Mockito.mock(UserDao.class), UserServiceOptions.builder()
+                .passwordHasher(new PasswordHasher(1))
+                .metrics(metrics)
+                .build());
+        userService.add(user(1, "Ivan", "123"));
+
+        userService.login("Ivan", "123");
+        userService.login("Ivan", "wrong");
+        userService.login("dummy", "123");
+
+        List<OperationSnapshot> exported = new ArrayList<>();
+        metrics.exportTo(exported::addAll);
+        assertThat(exported).extracting(OperationSnapshot::getName)
+                            .containsExactly("userService.add", "userService.delete", "userService.login");
+        OperationSnapshot login = exported.get(2);
+        assertThat(login.getSuccesses()).isEqualTo(1);
+        assertThat(login.getFailures()).isEqualTo(2);
+    }
+
+    @Test
+    void metricsArePublishedThroughJmx() throws Exception {
+        MetricsRegistry metrics = MetricsRegistry.create();
+        metrics.operation("test").record(1_000, true);
+        ObjectName name = metrics.registerMBean("junit.metrics:type=Test,id=" + UUID.randomUUID());
+        try {
+            Object successes = ManagementFactory.getPlatformMBeanServer().getAttribute(name, "test.successes");
+            Object max = ManagementFactory.getPlatformMBeanServer().getAttribute(name, "test.maxNanos");
+
+            assertThat(successes).isEqualTo(1L);
+            assertThat(max).isEqualTo(1_000L);
+            assertThatThrownBy(() -> ManagementFactory.getPlatformMBeanServer().invoke(name, "reset", null, null))
+                    .isInstanceOf(ReflectionException.class)
+                    .hasCauseInstanceOf(NoSuchMethodException.class);
+        } finally {
+            metrics.unregisterMBean(name);
+        }
+    }
+}
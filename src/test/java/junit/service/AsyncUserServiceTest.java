@@ -0,0 +1,80 @@
+package junit.service;
+
+import junit.TestBase;
+import junit.dao.UserDao;
+import junit.dto.User;
+import junit.service.store.StorageMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLock;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static junit.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+class AsyncUserServiceTest extends TestBase {
+
+    private static final User IVAN = user(1, "Ivan", "123");
+
+    @Mock
+    private UserDao userDao;
+    private AsyncUserService asyncUserService;
+
+    @BeforeEach
+    void prepare() {
+        UserService userService = new UserService(userDao, UserServiceOptions.builder()
+                .storageMode(StorageMode.CONCURRENT)
+                .build());
+        asyncUserService = new AsyncUserService(userService, AsyncOptions.builder()
+                .maxConcurrency(2)
+                .build());
+    }
+
+    @AfterEach
+    void closeExecutor() {
+        asyncUserService.close();
+    }
+
+    @Test
+    void addAndLoginAsync() {
+        assertThat(asyncUserService.addAsync(IVAN).join()).isTrue();
+
+        assertThat(asyncUserService.loginAsync(IVAN.getUserName(), "123").join()).contains(IVAN);
+    }
+
+    @Test
+    @ResourceLock(value = TestBase.CPU, mode = ResourceAccessMode.READ)
+    void rejectCallIfAllSlotsAreBusy() {
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(userDao).delete(Mockito.any());
+
+        List<CompletableFuture<Boolean>> running = IntStream.range(0, 2)
+                                                            .mapToObj(asyncUserService::deleteAsync)
+                                                            .collect(Collectors.toList());
+        CompletableFuture<Boolean> rejected = asyncUserService.deleteAsync(3);
+        boolean rejectedWithoutWaiting = rejected.isCompletedExceptionally();
+        release.countDown();
+
+        assertAll(
+                () -> assertThat(rejectedWithoutWaiting).isTrue(),
+                () -> assertThat(rejected).failsWithin(Duration.ofSeconds(1))
+                                          .withThrowableOfType(Exception.class)
+                                          .withCauseInstanceOf(RejectedExecutionException.class),
+                () -> assertThat(running).allSatisfy(future -> assertThat(future.get(5, TimeUnit.SECONDS)).isTrue())
+        );
+        assertThat(asyncUserService.availableSlots()).isEqualTo(2);
+    }
+}
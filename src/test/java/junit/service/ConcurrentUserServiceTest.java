@@ -0,0 +1,118 @@
+package junit.service;
+
+import junit.TestBase;
+import junit.dao.UserDao;
+import junit.dto.User;
+import junit.service.security.PasswordHasher;
+import junit.service.store.StorageMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLock;
+import org.mockito.Mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static junit.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Стресс-тест потокобезопасного режима хранения: писатели добавляют и сразу логинятся, читатель параллельно снимает
+ * getAll и проверяет, что каждый снимок содержит для каждого писателя непрерывный префикс его добавлений
+ */
+@Tag("Concurrency")
+@ResourceLock(value = TestBase.CPU, mode = ResourceAccessMode.READ_WRITE)
+class ConcurrentUserServiceTest extends TestBase {
+
+    private static final int WRITERS = 8;
+    private static final int USERS_PER_WRITER = 5_000;
+
+    @Mock
+    private UserDao userDao;
+    private UserService userService;
+
+    @BeforeEach
+    void prepare() {
+        userService = new UserService(userDao, UserServiceOptions.builder()
+                .storageMode(StorageMode.CONCURRENT)
+                .passwordHasher(new PasswordHasher(1))
+                .build());
+    }
+
+    @Test
+    void concurrentAddAndLoginKeepEveryUser() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < WRITERS; writer++) {
+                int writerId = writer;
+                writers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < USERS_PER_WRITER; i++) {
+                        User user = userOf(writerId, i);
+                        userService.add(user);
+                        assertThat(userService.login(user.getUserName(), "pwd-" + user.getId())).isEqualTo(Optional.of(user));
+                    }
+                    return null;
+                }));
+            }
+            Future<Integer> reader = executor.submit(() -> {
+                start.await();
+                int snapshots = 0;
+                while (writing.get()) {
+                    assertConsistent(userService.getAll());
+                    snapshots++;
+                }
+                return snapshots;
+            });
+
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+
+            assertThat(reader.get(30, TimeUnit.SECONDS)).isPositive();
+            List<User> users = userService.getAll();
+            assertThat(users).hasSize(WRITERS * USERS_PER_WRITER);
+            assertConsistent(users);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void snapshotIsNotAffectedByLaterAdds() {
+        userService.add(userOf(0, 0));
+        List<User> snapshot = userService.getAll();
+        userService.add(userOf(0, 1));
+
+        assertThat(snapshot).hasSize(1);
+        assertThat(userService.getAll()).hasSize(2);
+    }
+
+    private static void assertConsistent(List<User> snapshot) {
+        int[] expectedNext = new int[WRITERS];
+        for (User user : snapshot) {
+            int writerId = user.getId() / USERS_PER_WRITER;
+            assertThat(user.getId() % USERS_PER_WRITER).isEqualTo(expectedNext[writerId]);
+            expectedNext[writerId]++;
+        }
+    }
+
+    private static User userOf(int writerId, int i) {
+        int id = writerId * USERS_PER_WRITER + i;
+        return user(id, "user-" + id, "pwd-" + id);
+    }
+}
@@ -0,0 +1,137 @@
+package junit.service;
+
+import junit.dao.UserDao;
+import junit.dto.User;
+import junit.metrics.MetricsRegistry;
+import junit.metrics.OperationSnapshot;
+import junit.service.security.LoginThrottledException;
+import junit.service.security.PasswordHasher;
+import junit.service.security.ThrottleConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static junit.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShardedUserServiceTest {
+
+    private static final int USERS = 1_000;
+    private static final List<User> DATASET = IntStream.rangeClosed(1, USERS)
+                                                       .mapToObj(i -> user(i, "user-" + i, "password-" + i))
+                                                       .collect(Collectors.toList());
+
+    private List<UserDao> daos;
+    private ShardedUserService userService;
+
+    @BeforeEach
+    void prepare() {
+        daos = IntStream.range(0, 4).mapToObj(i -> Mockito.mock(UserDao.class)).collect(Collectors.toList());
+        userService = new ShardedUserService(daos.subList(0, 3), UserServiceOptions.builder()
+                .passwordHasher(new PasswordHasher(1))
+                .build());
+        userService.addAll(users());
+    }
+
+    @Test
+    void usersAreSpreadAcrossShardsAndGathered() {
+        assertAll(
+                () -> assertThat(userService.getAll()).hasSize(USERS).containsExactlyInAnyOrderElementsOf(users()),
+                () -> assertThat(userService.getAllConvertedByID()).hasSize(USERS),
+                () -> assertThat(userService.login("user-42", "password-42")).contains(users().get(41)),
+                () -> assertThat(userService.findById(7)).contains(users().get(6))
+        );
+    }
+
+    @Test
+    void deleteGoesOnlyToShardHoldingUser() {
+        int shard = ShardedUserService.shardIndex("user-5", 3);
+        Mockito.doReturn(true).when(daos.get(shard)).delete(5);
+
+        assertThat(userService.delete(5)).isTrue();
+
+        assertThat(userService.findById(5)).isEmpty();
+        for (int i = 0; i < 3; i++) {
+            Mockito.verify(daos.get(i), Mockito.times(i == shard ? 1 : 0)).delete(5);
+        }
+    }
+
+    @Test
+    void reshardMovesOnlyPartOfUsersAndKeepsLogins() {
+        long moved = users().stream()
+                            .filter(user -> ShardedUserService.shardIndex(user.getUserName(), 3)
+                                    != ShardedUserService.shardIndex(user.getUserName(), 4))
+                            .count();
+
+        userService.reshard(daos);
+
+        assertAll(
+                () -> assertThat(userService.shardCount()).isEqualTo(4),
+                () -> assertThat(userService.getAll()).hasSize(USERS),
+                () -> assertThat(userService.login("user-999", "password-999")).isPresent(),
+                () -> assertThat(moved).isBetween(USERS / 4L - 60, USERS / 4L + 60),
+                () -> assertThat(users()).allMatch(user -> {
+                    int oldShard = ShardedUserService.shardIndex(user.getUserName(), 3);
+                    int newShard = ShardedUserService.shardIndex(user.getUserName(), 4);
+                    return newShard == oldShard || newShard == 3;
+                })
+        );
+    }
+
+    @Test
+    void deleteMovedUserGoesToDaoHoldingItsRow() {
+        User moved = users().stream()
+                            .filter(user -> ShardedUserService.shardIndex(user.getUserName(), 4) == 3)
+                            .findFirst()
+                            .orElseThrow();
+        UserDao rowOwner = daos.get(ShardedUserService.shardIndex(moved.getUserName(), 3));
+        Mockito.doReturn(true).when(rowOwner).delete(moved.getId());
+
+        userService.reshard(daos);
+
+        assertAll(
+                () -> assertThat(userService.delete(moved.getId())).isTrue(),
+                () -> assertThat(userService.findById(moved.getId())).isEmpty(),
+                () -> Mockito.verify(rowOwner).delete(moved.getId()),
+                () -> Mockito.verify(daos.get(3), Mockito.never()).delete(moved.getId())
+        );
+    }
+
+    @Test
+    void listenersThrottleAndMetricsSurviveReshard() {
+        MetricsRegistry metrics = MetricsRegistry.create();
+        ShardedUserService throttled = new ShardedUserService(daos.subList(0, 3), UserServiceOptions.builder()
+                .passwordHasher(new PasswordHasher(1))
+                .loginThrottle(ThrottleConfig.builder().perUserBurst(1).perUserRate(0.001).build())
+                .metrics(metrics)
+                .build());
+        UserChangeListener listener = Mockito.mock(UserChangeListener.class);
+        throttled.addChangeListener(listener);
+        throttled.addAll(users());
+        assertThat(throttled.login("user-42", "password-42")).isPresent();
+
+        throttled.reshard(daos);
+        User added = user(USERS + 1, "user-new", "password-new");
+        throttled.add(added);
+
+        assertAll(
+                () -> Mockito.verify(listener).userAdded(added),
+                () -> Mockito.verify(listener, Mockito.times(USERS + 1)).userAdded(Mockito.any()),
+                () -> assertThrows(LoginThrottledException.class, () -> throttled.login("user-42", "password-42")),
+                () -> assertThat(metrics.snapshot()).filteredOn(operation -> operation.getName().equals("userService.login"))
+                                                    .singleElement()
+                                                    .extracting(OperationSnapshot::getCount)
+                                                    .isEqualTo(2L)
+        );
+    }
+
+    private static List<User> users() {
+        return DATASET;
+    }
+}
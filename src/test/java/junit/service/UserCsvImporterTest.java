@@ -0,0 +1,91 @@
+package junit.service;
+
+import junit.TestBase;
+import junit.dto.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static junit.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserCsvImporterTest extends TestBase {
+
+    @Test
+    void importLoginTestData(UserService userService) throws URISyntaxException {
+        UserCsvImporter importer = new UserCsvImporter(CsvImportOptions.builder().numLinesToSkip(1).build());
+
+        long imported = importer.importInto(userService, Path.of(getClass().getResource("/login-test-data.csv").toURI()));
+
+        assertThat(imported).isEqualTo(2);
+        assertThat(userService.login("Ivan", "123")).map(User::getUserName).contains("Ivan");
+    }
+
+    @Test
+    void importInBatchesWithIdsAndCustomDelimiter(UserService userService, @TempDir Path directory) throws Exception {
+        Path file = directory.resolve("users.csv");
+        Files.write(file, List.of("ID;USERNAME;PASSWORD", "1; Ivan ;123", "", "2;Petr;111", "3;Oleg;222"));
+        UserCsvImporter importer = new UserCsvImporter(CsvImportOptions.builder()
+                .delimiter(';')
+                .numLinesToSkip(1)
+                .idColumn(0)
+                .userNameColumn(1)
+                .passwordColumn(2)
+                .batchSize(2)
+                .build());
+
+        long imported = importer.importInto(userService, file);
+
+        assertAll(
+                () -> assertThat(imported).isEqualTo(3),
+                () -> assertThat(userService.getAll()).extracting(User::getId, User::getUserName)
+                                                      .containsExactly(tuple(1, "Ivan"), tuple(2, "Petr"), tuple(3, "Oleg")),
+                () -> assertThat(userService.login("Oleg", "222")).map(User::getId).contains(3)
+        );
+    }
+
+    @Test
+    void importPrehashedPasswordsAsIs(UserService userService, @TempDir Path directory) throws Exception {
+        User ivan = user(1, "Ivan", "123");
+        Path file = directory.resolve("users.csv");
+        Files.write(file, List.of("1,Ivan," + ivan.getPasswordHash().encode()));
+        UserCsvImporter importer = new UserCsvImporter(CsvImportOptions.builder()
+                .idColumn(0)
+                .userNameColumn(1)
+                .passwordColumn(2)
+                .hashedPasswords(true)
+                .build());
+
+        importer.importInto(userService, file);
+
+        assertAll(
+                () -> assertThat(userService.findById(1)).contains(ivan),
+                () -> assertThat(userService.login("Ivan", "123")).contains(ivan)
+        );
+    }
+
+    @Test
+    void throwExceptionIfPrehashedPasswordIsMalformed(UserService userService, @TempDir Path directory) throws Exception {
+        Path file = directory.resolve("users.csv");
+        Files.write(file, List.of("Ivan,123"));
+        UserCsvImporter importer = new UserCsvImporter(CsvImportOptions.builder().hashedPasswords(true).build());
+
+        assertThrows(IllegalArgumentException.class, () -> importer.importInto(userService, file));
+    }
+
+    @Test
+    void throwExceptionIfLineHasTooFewColumns(UserService userService, @TempDir Path directory) throws Exception {
+        Path file = directory.resolve("users.csv");
+        Files.write(file, List.of("Ivan"));
+        UserCsvImporter importer = new UserCsvImporter(CsvImportOptions.defaults());
+
+        assertThrows(IllegalArgumentException.class, () -> importer.importInto(userService, file));
+    }
+}
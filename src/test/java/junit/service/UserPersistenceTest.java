@@ -0,0 +1,130 @@
+package junit.service;
+
+import junit.TestBase;
+import junit.dao.UserDao;
+import junit.dto.User;
+import junit.service.persistence.UserChangeLog;
+import junit.service.persistence.UserSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static junit.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserPersistenceTest extends TestBase {
+
+    private static final User IVAN = user(1, "Ivan", "123");
+    private static final User PETR = user(2, "Петр", "111");
+    private static final User OLEG = user(null, "Oleg", "222");
+
+    @Mock
+    private UserDao userDao;
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void snapshotRoundTrip(boolean compress) {
+        Path file = directory.resolve("users.snapshot");
+        List<User> users = IntStream.range(0, 10_000)
+                                    .mapToObj(i -> user(i, "user-" + i, "password-" + i))
+                                    .collect(Collectors.toList());
+        users.add(PETR);
+        users.add(OLEG);
+
+        UserSnapshot.write(file, users, 42L, compress);
+        UserSnapshot.Contents contents = UserSnapshot.read(file);
+
+        assertThat(contents.getUsers()).isEqualTo(users);
+        assertThat(contents.getChangeLogSequence()).isEqualTo(42L);
+    }
+
+    @Test
+    void recoverFromSnapshotAndChangeLog() {
+        Path snapshot = directory.resolve("users.snapshot");
+        Path changeLog = directory.resolve("users.log");
+        Mockito.doReturn(true).when(userDao).delete(IVAN.getId());
+
+        UserService userService = new UserService(userDao);
+        try (UserChangeLog log = userService.recover(snapshot, changeLog, false)) {
+            userService.add(IVAN);
+            userService.add(PETR);
+            userService.checkpoint(snapshot, log, true);
+            userService.add(OLEG);
+            userService.delete(IVAN.getId());
+        }
+
+        UserService restored = new UserService(userDao);
+        try (UserChangeLog log = restored.recover(snapshot, changeLog, false)) {
+            assertThat(restored.getAll()).containsExactly(PETR, OLEG);
+            assertThat(log.lastSequence()).isEqualTo(4L);
+        }
+        Mockito.verify(userDao, Mockito.times(1)).delete(IVAN.getId());
+    }
+
+    @Test
+    void tornTailOfChangeLogIsIgnored() throws Exception {
+        Path changeLog = directory.resolve("users.log");
+        try (UserChangeLog log = UserChangeLog.open(changeLog, 0L, false)) {
+            log.userAdded(IVAN);
+            log.userAdded(PETR);
+        }
+        try (FileChannel channel = FileChannel.open(changeLog, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        UserService restored = new UserService(userDao);
+        try (UserChangeLog log = restored.recover(directory.resolve("missing.snapshot"), changeLog, false)) {
+            restored.add(OLEG);
+        }
+
+        assertThat(restored.getAll()).containsExactly(IVAN, OLEG);
+        UserService again = new UserService(userDao);
+        again.recover(directory.resolve("missing.snapshot"), changeLog, false).close();
+        assertThat(again.getAll()).containsExactly(IVAN, OLEG);
+    }
+
+    @Test
+    void filesHoldOnlyPasswordHashes() throws Exception {
+        Path snapshot = directory.resolve("users.snapshot");
+        Path changeLog = directory.resolve("users.log");
+
+        UserService userService = new UserService(userDao);
+        try (UserChangeLog log = userService.recover(snapshot, changeLog, false)) {
+            userService.register(1, "Ivan", "secret-ivan");
+            userService.checkpoint(snapshot, log, false);
+            userService.register(2, "Petr", "secret-petr");
+        }
+
+        assertThat(new String(Files.readAllBytes(snapshot), StandardCharsets.ISO_8859_1)).contains("Ivan").doesNotContain("secret");
+        assertThat(new String(Files.readAllBytes(changeLog), StandardCharsets.ISO_8859_1)).contains("Petr").doesNotContain("secret");
+        UserService restored = new UserService(userDao);
+        restored.recover(snapshot, changeLog, false).close();
+        assertThat(restored.getAll()).isEqualTo(userService.getAll());
+        assertThat(restored.login("Petr", "secret-petr")).map(User::getId).contains(2);
+    }
+
+    @Test
+    void snapshotOfUnknownVersionIsRejected() throws Exception {
+        Path snapshot = directory.resolve("users.snapshot");
+        Files.write(snapshot, ByteBuffer.allocate(26).putInt(0x55534E50).put((byte) 9).array());
+
+        assertThatThrownBy(() -> UserSnapshot.read(snapshot)).isInstanceOf(IllegalStateException.class)
+                                                            .hasMessageContaining("unsupported snapshot version 9");
+    }
+}
@@ -0,0 +1,134 @@
+package junit.service;
+
+import junit.TestBase;
+import junit.dao.UserDao;
+import junit.dto.User;
+import junit.service.security.PasswordHasher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static junit.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserQueryTest extends TestBase {
+
+    private static final int USERS = 1_000;
+
+    @Mock
+    private UserDao userDao;
+
+    /**
+     * Порог 1 включает параллельное сканирование, порог больше числа пользователей - последовательное; результат
+     * и порядок должны совпадать
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1, Integer.MAX_VALUE})
+    void pagesFollowInsertionOrder(int parallelQueryThreshold) {
+        UserService userService = userService(parallelQueryThreshold);
+        UserQuery evenIds = UserQuery.builder()
+                                     .filter(user -> user.getId() % 2 == 0)
+                                     .pageSize(100)
+                                     .build();
+
+        List<User> collected = new ArrayList<>();
+        UserPage page = userService.query(evenIds);
+        collected.addAll(page.getContent());
+        while (page.hasNext()) {
+            page = page.next().orElseThrow();
+            collected.addAll(page.getContent());
+        }
+
+        assertAll(
+                () -> assertThat(collected).hasSize(USERS / 2),
+                () -> assertThat(collected).extracting(User::getId).isSorted(),
+                () -> assertThat(userService.count(evenIds)).isEqualTo(USERS / 2)
+        );
+    }
+
+    @Test
+    void filterByUserNamePrefix() {
+        UserService userService = userService(Integer.MAX_VALUE);
+        UserQuery query = UserQuery.builder().userNamePrefix("user-99").build();
+
+        UserPage page = userService.query(query);
+
+        assertThat(page.getContent()).extracting(User::getUserName)
+                                     .containsExactly("user-99", "user-990", "user-991", "user-992", "user-993",
+                                             "user-994", "user-995", "user-996", "user-997", "user-998", "user-999");
+        assertThat(page.hasNext()).isFalse();
+        assertThat(page.next()).isEmpty();
+    }
+
+    @Test
+    void autocompleteByUserNamePrefix() {
+        UserService userService = userService(Integer.MAX_VALUE);
+
+        assertAll(
+                () -> assertThat(userService.findByUsernamePrefix("user-99", 3)).extracting(User::getUserName)
+                                                                                 .containsExactly("user-99", "user-990", "user-991"),
+                () -> assertThat(userService.findByUsernamePrefix("user-", 2000)).hasSize(USERS),
+                () -> assertThat(userService.findByUsernamePrefix("dummy", 10)).isEmpty()
+        );
+    }
+
+    @Test
+    void deletedUserDisappearsFromAutocomplete() {
+        UserService userService = userService(Integer.MAX_VALUE);
+        Mockito.doReturn(true).when(userDao).delete(990);
+
+        userService.delete(990);
+
+        assertThat(userService.findByUsernamePrefix("user-99", 3)).extracting(User::getUserName)
+                                                                   .containsExactly("user-99", "user-991", "user-992");
+    }
+
+    /**
+     * Индекс имен не меняет того, что принимает хранилище: пользователь без имени добавляется и удаляется, как до
+     * появления автодополнения, просто не находится по префиксу
+     */
+    @Test
+    void userWithoutNameIsStoredButNotAutocompleted() {
+        UserService userService = userService(Integer.MAX_VALUE);
+        User anonymous = user(USERS, null, "password");
+        Mockito.doReturn(true).when(userDao).delete(USERS);
+
+        userService.add(anonymous);
+
+        assertAll(
+                () -> assertThat(userService.getAll()).hasSize(USERS + 1).contains(anonymous),
+                () -> assertThat(userService.findByUsernamePrefix("", USERS + 1)).hasSize(USERS),
+                () -> assertThat(userService.count(UserQuery.builder().userNamePrefix("").build())).isEqualTo(USERS)
+        );
+        assertThat(userService.delete(USERS)).isTrue();
+        assertThat(userService.getAll()).hasSize(USERS).doesNotContain(anonymous);
+    }
+
+    @Test
+    void pageContentIsNotModifiable() {
+        UserService userService = userService(Integer.MAX_VALUE);
+
+        assertThrows(UnsupportedOperationException.class, () -> userService.query(UserQuery.all()).getContent().clear());
+        assertThrows(UnsupportedOperationException.class, () -> userService.getAll().clear());
+    }
+
+    private UserService userService(int parallelQueryThreshold) {
+        UserService userService = new UserService(userDao, UserServiceOptions.builder()
+                .passwordHasher(new PasswordHasher(1))
+                .parallelQueryThreshold(parallelQueryThreshold)
+                .build());
+        userService.addAll(IntStream.range(0, USERS)
+                                    .mapToObj(i -> user(i, "user-" + i, "password-" + i))
+                                    .collect(Collectors.toList()));
+        return userService;
+    }
+}
@@ -0,0 +1,46 @@
+package junit.service;
+
+import junit.TestBase;
+import junit.dao.UserDao;
+import junit.extension.LoadTest;
+import junit.extension.UserServiceFixture;
+import org.junit.jupiter.api.BeforeEach;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Частоты и SLO подобраны с запасом под медленные CI-машины: тесты ловят деградацию в разы, а не на проценты
+ */
+class UserServiceLoadTest extends TestBase {
+
+    @Mock
+    private UserDao userDao;
+    private UserService userServiceWithSlowDao;
+
+    @BeforeEach
+    void prepare() {
+        Mockito.lenient().doAnswer(invocation -> {
+            TimeUnit.MILLISECONDS.sleep(2);
+            return true;
+        }).when(userDao).delete(Mockito.anyInt());
+        userServiceWithSlowDao = new UserService(userDao);
+    }
+
+    @LoadTest(threads = 2, rate = 50, durationMillis = 1_000, warmupMillis = 200, maxP99Millis = 500, minThroughput = 40)
+    @UserServiceFixture(scope = UserServiceFixture.Scope.RUN, users = 10)
+    void loginUnderLoad(UserService userService) {
+        int id = ThreadLocalRandom.current().nextInt(1, 11);
+
+        assertThat(userService.login("user-" + id, "password-" + id)).isPresent();
+    }
+
+    @LoadTest(threads = 4, rate = 200, durationMillis = 1_000, maxP99Millis = 200, minThroughput = 150)
+    void deleteWithSlowDao() {
+        assertThat(userServiceWithSlowDao.delete(ThreadLocalRandom.current().nextInt(1_000))).isTrue();
+    }
+}
@@ -21,6 +21,8 @@ import org.junit.jupiter.api.TestInfo;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.TestMethodOrder;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -34,6 +36,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
 
+import static junit.TestUsers.user;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.collection.IsEmptyCollection.empty;
@@ -51,6 +54,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
  */
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Execution(ExecutionMode.SAME_THREAD)      // при PER_CLASS поля общие для всех тестов, поэтому методы класса идут по очереди
 // @TestMethodOrder(MethodOrderer.OrderAnnotation.class)       аннотация для определения порядка выполнения тестов
 // @TestMethodOrder(MethodOrderer.MethodName.class)       аннотация для запуска тестов по алфавиту
 
@@ -58,9 +62,9 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class UserServiceTest extends TestBase {
 
-    private static final User IVAN = User.of(1, "Ivan", "123");
-    private static final User PETR = User.of(2, "Petr", "111");
-    private static final User OLEG = User.of(3, "Oleg", "222");
+    private static final User IVAN = user(1, "Ivan", "123");
+    private static final User PETR = user(2, "Petr", "111");
+    private static final User OLEG = user(3, "Oleg", "222");
 
     @Mock
     private UserDao userDao;
@@ -82,7 +86,7 @@ public class UserServiceTest extends TestBase {
 //        Mockito.doReturn(true).when(userDao).delete(IVAN.getId());
 //        this.userDao = Mockito.mock(UserDao.class);
 //        this.userDao = Mockito.spy(new UserDao());
-//        this.userService = new UserService(userDao);
+        this.userService = new UserService(userDao);    // при PER_CLASS @InjectMocks не пересоздает сервис, а мок userDao новый
     }
 
     @Test
@@ -142,6 +146,28 @@ public class UserServiceTest extends TestBase {
         );
     }
 
+    @Test
+    void userFoundByIdIfUserAdded() {
+        userService.add(IVAN);
+        userService.add(PETR);
+
+        assertThat(userService.findById(PETR.getId())).contains(PETR);
+        assertThat(userService.findById(-1)).isEmpty();
+    }
+
+    @Test
+    void loginFailAfterUserDeletedEvenIfCredentialsCached() {
+        userService.add(IVAN);
+        Mockito.doReturn(true).when(userDao).delete(IVAN.getId());
+        userService.login(IVAN.getUserName(), "123");
+        userService.login(IVAN.getUserName(), "123");
+
+        userService.delete(IVAN.getId());
+
+        assertThat(userService.login(IVAN.getUserName(), "123")).isEmpty();
+        assertThat(userService.verifiedCredentialsCacheStats()).hasValueSatisfying(stats -> assertThat(stats.getHits()).isEqualTo(1));
+    }
+
     @AfterEach
     void deleteDataFromDatabase() {
         System.out.println("After each: " + this);
@@ -160,7 +186,7 @@ public class UserServiceTest extends TestBase {
         @Test
         void loginFailIfUserDoesNotExist() {
             userService.add(IVAN);
-            Optional<User> maybeUser = userService.login("Kiril", IVAN.getPassword());
+            Optional<User> maybeUser = userService.login("Kiril", "123");
 
             assertTrue(maybeUser.isEmpty());
         }
@@ -180,7 +206,7 @@ public class UserServiceTest extends TestBase {
         void checkLoginFunctionalityPerformance() {
             assertTimeout(Duration.ofMillis(300L), () -> {
                 Thread.sleep(300L);
-                return userService.login("dummy", IVAN.getPassword());
+                return userService.login("dummy", "123");
             });
         }
 
@@ -189,7 +215,7 @@ public class UserServiceTest extends TestBase {
         @DisplayName("Удачная авторизация, если пользователь существует")
         void loginSuccessIfUserExists() {
             userService.add(IVAN);
-            Optional<User> maybeUser = userService.login(IVAN.getUserName(), IVAN.getPassword());
+            Optional<User> maybeUser = userService.login(IVAN.getUserName(), "123");
 
             assertThat(maybeUser).isPresent();
 //            assertTrue(maybeUser.isPresent());
@@ -0,0 +1,159 @@
+package junit.service.feed;
+
+import junit.TestBase;
+import junit.dao.UserDao;
+import junit.dto.User;
+import junit.service.UserService;
+import junit.service.UserServiceOptions;
+import junit.service.security.PasswordHasher;
+import junit.service.store.StorageMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLock;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static junit.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserChangeFeedTest extends TestBase {
+
+    private static final User IVAN = user(1, "Ivan", "123");
+    private static final User PETR = user(2, "Petr", "111");
+
+    @Mock
+    private UserDao userDao;
+
+    @Test
+    void consumerReadsDeltasFromItsSequence() {
+        UserService userService = userService();
+        UserChangeFeed feed = userService.openChangeFeed(16);
+        Mockito.doReturn(true).when(userDao).delete(IVAN.getId());
+
+        userService.add(IVAN);
+        userService.add(PETR);
+        userService.delete(IVAN.getId());
+
+        ChangeBatch first = feed.poll(0, 2);
+        ChangeBatch second = feed.poll(first.getLastSequence(), 10);
+        assertAll(
+                () -> assertThat(first.getEvents()).extracting(UserChangeEvent::getUser).containsExactly(IVAN, PETR),
+                () -> assertThat(first.getLastSequence()).isEqualTo(2),
+                () -> assertThat(second.getEvents()).containsExactly(
+                        new UserChangeEvent(3, UserChangeEvent.Type.DELETED, IVAN.getId(), null)),
+                () -> assertThat(feed.poll(second.getLastSequence(), 10).getEvents()).isEmpty(),
+                () -> assertThat(second.isMissed()).isFalse()
+        );
+    }
+
+    @Test
+    void laggingConsumerIsToldToResync() {
+        UserChangeFeed feed = new UserChangeFeed(4);
+        for (int id = 1; id <= 10; id++) {
+            feed.userAdded(user(id, "user-" + id, "password"));
+        }
+
+        ChangeBatch lagging = feed.poll(2, 10);
+        ChangeBatch recent = feed.poll(6, 10);
+
+        assertThat(lagging.isMissed()).isTrue();
+        assertThat(lagging.getLastSequence()).isEqualTo(10);
+        assertThat(recent.getEvents()).extracting(UserChangeEvent::getSequence).containsExactly(7L, 8L, 9L, 10L);
+    }
+
+    @Test
+    void capacityMustBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new UserChangeFeed(12));
+    }
+
+    @Test
+    @ResourceLock(value = CPU, mode = ResourceAccessMode.READ_WRITE)
+    void concurrentProducersPublishEverySequenceOnce() throws Exception {
+        UserChangeFeed feed = new UserChangeFeed(1 << 16);
+        int threads = 4;
+        int perThread = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    feed.userDeleted(offset + i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        ChangeBatch batch = feed.poll(0, threads * perThread);
+
+        assertThat(batch.getLastSequence()).isEqualTo(threads * perThread);
+        assertThat(batch.getEvents()).extracting(UserChangeEvent::getUserId).doesNotHaveDuplicates()
+                                     .hasSize(threads * perThread);
+    }
+
+    /**
+     * add и delete одного id из двух потоков: зеркало, собранное из ленты, должно совпасть с сервисом. Раньше номер
+     * брался после изменения, и DELETED мог получить меньший номер, чем ADDED, который применился до него
+     */
+    @Test
+    @ResourceLock(value = CPU, mode = ResourceAccessMode.READ_WRITE)
+    void changesOfOneIdAreNumberedInOrderOfApplication() throws Exception {
+        Mockito.when(userDao.delete(IVAN.getId())).thenReturn(true);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 2_000; round++) {
+                UserService userService = new UserService(userDao, UserServiceOptions.builder()
+                        .storageMode(StorageMode.CONCURRENT)
+                        .passwordHasher(new PasswordHasher(1))
+                        .build());
+                UserChangeFeed feed = new UserChangeFeed(16);
+                userService.addChangeListener(feed);
+                userService.add(IVAN);
+                CyclicBarrier barrier = new CyclicBarrier(2);
+                Future<?> add = executor.submit(() -> {
+                    barrier.await();
+                    return userService.add(IVAN);
+                });
+                Future<?> delete = executor.submit(() -> {
+                    barrier.await();
+                    return userService.delete(IVAN.getId());
+                });
+                add.get(10, TimeUnit.SECONDS);
+                delete.get(10, TimeUnit.SECONDS);
+
+                Map<Integer, User> mirror = new HashMap<>();
+                for (UserChangeEvent event : feed.poll(0, 16).getEvents()) {
+                    if (event.getType() == UserChangeEvent.Type.ADDED) {
+                        mirror.put(event.getUserId(), event.getUser());
+                    } else {
+                        mirror.remove(event.getUserId());
+                    }
+                }
+                assertThat(mirror.containsKey(IVAN.getId())).as("round %d", round)
+                                                            .isEqualTo(userService.findById(IVAN.getId()).isPresent());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private UserService userService() {
+        return new UserService(userDao, UserServiceOptions.builder().passwordHasher(new PasswordHasher(1)).build());
+    }
+}
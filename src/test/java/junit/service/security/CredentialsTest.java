@@ -0,0 +1,36 @@
+package junit.service.security;
+
+import junit.dto.PasswordHash;
+import junit.dto.User;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CredentialsTest {
+
+    private final PasswordHasher hasher = Mockito.spy(new PasswordHasher(1));
+    private final Credentials credentials = new Credentials(hasher, null);
+
+    @Test
+    void unknownUserNameCostsSameKdfAsWrongPassword() {
+        User ivan = User.of(1, "Ivan", hasher.hash("123"));
+
+        assertThat(credentials.verify(List.of(), "Petr", "111")).isEmpty();
+        assertThat(credentials.verify(List.of(ivan), "Ivan", "111")).isEmpty();
+
+        Mockito.verify(hasher, Mockito.times(2)).verify(ArgumentMatchers.eq("111"), ArgumentMatchers.any(PasswordHash.class));
+    }
+
+    @Test
+    void dummyHashIsComputedOnce() {
+        credentials.verify(List.of(), "Petr", "111");
+        credentials.verify(List.of(), "Oleg", "222");
+
+        Mockito.verify(hasher, Mockito.times(1)).hash(ArgumentMatchers.anyString());
+        Mockito.verify(hasher, Mockito.times(2)).verify(ArgumentMatchers.anyString(), ArgumentMatchers.any(PasswordHash.class));
+    }
+}
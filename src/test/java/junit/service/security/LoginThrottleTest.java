@@ -0,0 +1,152 @@
+package junit.service.security;
+
+import junit.dao.UserDao;
+import junit.dto.User;
+import junit.service.UserService;
+import junit.service.UserServiceOptions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static junit.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LoginThrottleTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void userBucketAllowsBurstThenRefillsAtRate() {
+        LoginThrottle throttle = new LoginThrottle(ThrottleConfig.builder().perUserBurst(3).perUserRate(2.0).build(),
+                clock::get);
+
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("Ivan");
+        }
+        LoginThrottledException rejected = assertThrows(LoginThrottledException.class, () -> throttle.acquire("Ivan"));
+        assertThat(rejected.getRetryAfter()).isEqualTo(Duration.ofMillis(500));
+        assertDoesNotThrow(() -> throttle.acquire("Petr"));
+
+        clock.addAndGet(Duration.ofMillis(500).toNanos());
+
+        assertDoesNotThrow(() -> throttle.acquire("Ivan"));
+        assertThrows(LoginThrottledException.class, () -> throttle.acquire("Ivan"));
+    }
+
+    @Test
+    void globalBucketLimitsAllUsersTogether() {
+        LoginThrottle throttle = new LoginThrottle(ThrottleConfig.builder().globalBurst(1).globalRate(1.0).build(),
+                clock::get);
+
+        throttle.acquire("Ivan");
+
+        assertThrows(LoginThrottledException.class, () -> throttle.acquire("Petr"));
+    }
+
+    @Test
+    void idleBucketsExpire() {
+        LoginThrottle throttle = new LoginThrottle(ThrottleConfig.builder().idleTimeout(Duration.ofMinutes(1)).build(),
+                clock::get);
+        for (int i = 0; i < 100; i++) {
+            throttle.acquire("user-" + i);
+        }
+        assertThat(throttle.trackedUsers()).isEqualTo(100);
+
+        clock.addAndGet(Duration.ofMinutes(2).toNanos());
+        throttle.acquire("Ivan");
+        assertThat(throttle.trackedUsers()).isGreaterThan(1);
+        for (int i = 0; i < 100 / LoginThrottle.SWEEP_BATCH; i++) {
+            throttle.acquire("Ivan");
+        }
+
+        assertThat(throttle.trackedUsers()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectedNewUserDoesNotAllocateBucket() {
+        LoginThrottle throttle = new LoginThrottle(ThrottleConfig.builder().globalBurst(1).globalRate(1.0).build(),
+                clock::get);
+        throttle.acquire("Ivan");
+
+        for (int i = 0; i < 1_000; i++) {
+            String userName = "user-" + i;
+            assertThrows(LoginThrottledException.class, () -> throttle.acquire(userName));
+        }
+
+        assertThat(throttle.trackedUsers()).isEqualTo(1);
+    }
+
+    /**
+     * Сверх maxTrackedUsers новые имена не отслеживаются, но и не отклоняются: их ограничивает общая корзина
+     */
+    @Test
+    void untrackedUsersBeyondCapAreLimitedOnlyGlobally() {
+        LoginThrottle throttle = new LoginThrottle(ThrottleConfig.builder().maxTrackedUsers(10).perUserBurst(1)
+                                                                 .globalBurst(20).globalRate(1.0).build(), clock::get);
+        for (int i = 0; i < 10; i++) {
+            throttle.acquire("user-" + i);
+        }
+
+        assertDoesNotThrow(() -> throttle.acquire("Ivan"));
+        assertDoesNotThrow(() -> throttle.acquire("Ivan"));
+        assertThrows(LoginThrottledException.class, () -> throttle.acquire("user-0"));
+        assertThat(throttle.trackedUsers()).isEqualTo(10);
+        for (int i = 0; i < 8; i++) {
+            throttle.acquire("Petr");
+        }
+        assertThrows(LoginThrottledException.class, () -> throttle.acquire("Oleg"));
+    }
+
+    /**
+     * Общая корзина пуста: отклоненная попытка под известным именем не должна тратить токен этого имени, иначе
+     * чужой поток попыток запирает владельца
+     */
+    @Test
+    void globallyThrottledAttemptKeepsUserToken() {
+        LoginThrottle throttle = new LoginThrottle(ThrottleConfig.builder().perUserBurst(2).perUserRate(0.001)
+                                                                 .globalBurst(1).globalRate(1.0).build(), clock::get);
+        throttle.acquire("Ivan");
+        for (int i = 0; i < 5; i++) {
+            assertThrows(LoginThrottledException.class, () -> throttle.acquire("Ivan"));
+        }
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        assertDoesNotThrow(() -> throttle.acquire("Ivan"));
+    }
+
+    /**
+     * Новое имя, которому отказала собственная корзина, возвращает токен общей корзины
+     */
+    @Test
+    void userRejectionRefundsGlobalToken() {
+        LoginThrottle throttle = new LoginThrottle(ThrottleConfig.builder().perUserBurst(1).perUserRate(0.001)
+                                                                 .globalBurst(2).globalRate(0.001).build(), clock::get);
+        throttle.acquire("Ivan");
+        assertThrows(LoginThrottledException.class, () -> throttle.acquire("Ivan"));
+
+        assertDoesNotThrow(() -> throttle.acquire("Petr"));
+    }
+
+    @Test
+    void throttledLoginIsRejectedBeforePasswordCheck() {
+        PasswordHasher hasher = Mockito.spy(new PasswordHasher(1));
+        UserService userService = new UserService(Mockito.mock(UserDao.class), UserServiceOptions.builder()
+                .passwordHasher(hasher)
+                .verifiedCredentialsCache(null)
+                .loginThrottle(ThrottleConfig.builder().perUserBurst(2).perUserRate(0.001).build())
+                .build());
+        userService.add(user(1, "Ivan", "123"));
+
+        userService.login("Ivan", "wrong");
+        userService.login("Ivan", "wrong");
+
+        assertThrows(LoginThrottledException.class, () -> userService.login("Ivan", "123"));
+        Mockito.verify(hasher, Mockito.times(2)).verify(Mockito.eq("wrong"), Mockito.any());
+        Mockito.verify(hasher, Mockito.never()).verify(Mockito.eq("123"), Mockito.any());
+    }
+}
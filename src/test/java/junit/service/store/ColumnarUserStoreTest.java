@@ -0,0 +1,129 @@
+package junit.service.store;
+
+import junit.dto.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static junit.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+class ColumnarUserStoreTest {
+
+    private static final User IVAN = user(1, "Ivan", "123");
+    private static final User PETR = user(2, "Петр", "111");
+    private static final User IVAN_DUPLICATE = user(3, "Ivan", "456");
+    private static final User NO_ID = user(null, "Oleg", "222");
+    private static final User SECOND_WITH_ID_1 = user(1, "Ivan2", "789");
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void behavesLikeListStore(boolean offHeap) {
+        ColumnarUserStore store = new ColumnarUserStore(offHeap);
+        List<User> users = List.of(IVAN, PETR, IVAN_DUPLICATE, NO_ID, SECOND_WITH_ID_1);
+        store.addAll(users);
+
+        assertAll(
+                () -> assertThat(store.getAll()).isEqualTo(users),
+                () -> assertThat(store.findByUserName("Ivan")).containsExactly(IVAN, IVAN_DUPLICATE),
+                () -> assertThat(store.findByUserName("Петр")).containsExactly(PETR),
+                () -> assertThat(store.findByUserName("dummy")).isEmpty(),
+                () -> assertThat(store.findById(1)).contains(IVAN),
+                () -> assertThat(store.byId()).hasSize(3).containsEntry(2, PETR).containsKeys(1, 2, 3)
+        );
+
+        assertThat(store.remove(1)).containsExactly(IVAN, SECOND_WITH_ID_1);
+        assertAll(
+                () -> assertThat(store.getAll()).containsExactly(PETR, IVAN_DUPLICATE, NO_ID),
+                () -> assertThat(store.findByUserName("Ivan")).containsExactly(IVAN_DUPLICATE),
+                () -> assertThat(store.findById(1)).isEmpty(),
+                () -> assertThat(store.byId()).hasSize(2)
+        );
+    }
+
+    @Test
+    void indexesSurviveGrowth() {
+        ColumnarUserStore store = new ColumnarUserStore();
+        List<User> users = users(50_000);
+        store.addAll(users);
+
+        assertThat(store.findByUserName("user-49999")).containsExactly(users.get(49_999));
+        assertThat(store.findById(12_345)).contains(users.get(12_345));
+    }
+
+    /**
+     * JOL считает только объекты в куче, поэтому сравнивается хранилище в куче: колоночное должно занимать меньше
+     * половины памяти списка объектов User. Случайные соль и хэш (48 байт) одинаковы в обоих, выигрыш - на заголовках
+     * объектов User, Integer, String, PasswordHash и двух массивов
+     */
+    @Test
+    void columnarStoreUsesLessHeapThanListStore() {
+        List<User> users = users(20_000);
+        ListUserStore listStore = new ListUserStore();
+        ColumnarUserStore columnarStore = new ColumnarUserStore();
+        listStore.addAll(users);
+        columnarStore.addAll(users);
+
+        long listBytes = GraphLayout.parseInstance(listStore).totalSize();
+        long columnarBytes = GraphLayout.parseInstance(columnarStore).totalSize();
+
+        assertThat(columnarBytes).as("columnar store bytes, list store has %d", listBytes).isLessThan(listBytes / 2);
+    }
+
+    /**
+     * После удаления трех четвертей пользователей хранилище уплотняется: занимает меньше половины прежнего и не больше
+     * свежего хранилища с теми же живыми пользователями (с запасом на массивы, выросшие при заполнении), а порядок и
+     * поиск не меняются.
+     * Выданный до уплотнения getAll остается верным. Память, как и выше, сравнивается только для хранилища в куче:
+     * граф direct buffer JOL обходит не на всех JVM
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void removedRowsAreCompacted(boolean offHeap) {
+        List<User> users = users(20_000);
+        ColumnarUserStore store = new ColumnarUserStore(offHeap);
+        store.addAll(users);
+        List<User> before = store.getAll();
+        long fullBytes = offHeap ? 0 : GraphLayout.parseInstance(store).totalSize();
+
+        for (int id = 0; id < 20_000; id++) {
+            if (id % 4 != 0) {
+                store.remove(id);
+            }
+        }
+        List<User> live = users.stream().filter(user -> user.getId() % 4 == 0).collect(Collectors.toList());
+        if (!offHeap) {
+            ColumnarUserStore fresh = new ColumnarUserStore();
+            fresh.addAll(live);
+            long compactedBytes = GraphLayout.parseInstance(store).totalSize();
+            long freshBytes = GraphLayout.parseInstance(fresh).totalSize();
+            assertThat(compactedBytes).as("compacted store bytes, full store has %d", fullBytes)
+                                      .isLessThan(fullBytes / 2)
+                                      .isLessThan(freshBytes * 3 / 2);
+        }
+
+        assertAll(
+                () -> assertThat(before).isEqualTo(users),
+                () -> assertThat(store.getAll()).isEqualTo(live),
+                () -> assertThat(store.findById(12_344)).contains(users.get(12_344)),
+                () -> assertThat(store.findById(12_345)).isEmpty(),
+                () -> assertThat(store.findByUserName("user-19996")).containsExactly(users.get(19_996)),
+                () -> assertThat(store.byId()).hasSize(live.size())
+        );
+        User added = user(20_000, "user-0", "password");
+        store.add(added);
+        assertThat(store.findByUserName("user-0")).containsExactly(users.get(0), added);
+    }
+
+    private static List<User> users(int count) {
+        return IntStream.range(0, count)
+                        .mapToObj(i -> user(i, "user-" + i, "password-" + i))
+                        .collect(Collectors.toList());
+    }
+}
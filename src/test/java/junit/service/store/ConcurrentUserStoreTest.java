@@ -0,0 +1,80 @@
+package junit.service.store;
+
+import junit.TestBase;
+import junit.dto.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceAccessMode;
+import org.junit.jupiter.api.parallel.ResourceLock;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static junit.TestUsers.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@ResourceLock(value = TestBase.CPU, mode = ResourceAccessMode.READ_WRITE)
+class ConcurrentUserStoreTest {
+
+    private static final int ROUNDS = 5_000;
+    private static final User IVAN = user(1, "Ivan", "123");
+    private static final User SECOND_WITH_ID_1 = user(1, "Ivan2", "789");
+
+    @Test
+    void removeDropsEveryUserWithId() {
+        ConcurrentUserStore store = new ConcurrentUserStore();
+        store.addAll(List.of(IVAN, SECOND_WITH_ID_1));
+
+        assertThat(store.remove(1)).containsExactly(IVAN, SECOND_WITH_ID_1);
+        assertAll(
+                () -> assertThat(store.getAll()).isEmpty(),
+                () -> assertThat(store.findById(1)).isEmpty(),
+                () -> assertThat(store.byId()).isEmpty(),
+                () -> assertThat(store.findByUserName("Ivan")).isEmpty()
+        );
+    }
+
+    /**
+     * Удаление id, идущее вместе с повторным добавлением того же id: после обоих пользователь либо виден везде,
+     * либо нигде. Раньше remove снимал номера и пользователя двумя отдельными удалениями, и add, попавший между
+     * ними, оставался в getAll без записи в индексе по id
+     */
+    @Test
+    void removeRacingAddOfSameIdKeepsIndexesConsistent() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                ConcurrentUserStore store = new ConcurrentUserStore();
+                store.add(IVAN);
+                CyclicBarrier barrier = new CyclicBarrier(2);
+                CompletableFuture<Void> add = CompletableFuture.runAsync(() -> {
+                    await(barrier);
+                    store.add(SECOND_WITH_ID_1);
+                }, executor);
+                CompletableFuture<Void> remove = CompletableFuture.runAsync(() -> {
+                    await(barrier);
+                    store.remove(1);
+                }, executor);
+                CompletableFuture.allOf(add, remove).get(10, TimeUnit.SECONDS);
+
+                boolean listed = store.getAll().stream().anyMatch(user -> user.getId() == 1);
+                assertThat(store.findById(1).isPresent()).as("round %d", round).isEqualTo(listed);
+                assertThat(store.byId().containsKey(1)).as("round %d", round).isEqualTo(listed);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}